@@ -0,0 +1,157 @@
+package com.example.examplemod;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.chat.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Общие данные для бенчмарков: конфиг языков, типы сообщений и легковесные заменители игроков
+ */
+final class BenchmarkFixtures
+{
+    static final List<String> LANGUAGES = List.of("ru", "en", "de", "pt", "pt_br");
+    // Локали клиентов в том виде, в котором их присылает игра
+    static final String[] CLIENT_LOCALES = { "ru_ru", "en_us", "de_de", "pt_br", "pt_pt", "fr_fr" };
+
+    /**
+     * Заменитель ServerPlayer: UUID и локаль клиента, а отправка только считает полученные сообщения.
+     * Общий пакет (SHARED) принимается так же, как SharedPacketBroadcaster.send - дубликатом буфера
+     */
+    static final class StandInPlayer implements NotifyRecipient
+    {
+        final UUID uuid;
+        final String locale;
+        final String name;
+        int received;
+
+        StandInPlayer(UUID uuid, String locale, String name)
+        {
+            this.uuid = uuid;
+            this.locale = locale;
+            this.name = name;
+        }
+
+        @Override
+        public UUID getUUID()
+        {
+            return uuid;
+        }
+
+        @Override
+        public String getLanguage()
+        {
+            return locale;
+        }
+
+        @Override
+        public boolean isChatHidden()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean hasDisconnected()
+        {
+            return false;
+        }
+
+        @Override
+        public String getPlayerName()
+        {
+            return name;
+        }
+
+        @Override
+        public String getWorldName()
+        {
+            return "overworld";
+        }
+
+        @Override
+        public void sendSystemMessage(Component message)
+        {
+            received++;
+        }
+
+        @Override
+        public boolean sendEncoded(ByteBuf encoded)
+        {
+            encoded.retainedDuplicate().release();
+            received++;
+            return true;
+        }
+    }
+
+    private BenchmarkFixtures()
+    {
+    }
+
+    static void configureLanguages()
+    {
+        Config.supportedLanguages = new ArrayList<>(LANGUAGES);
+        Config.locales = new LocaleResolver(Config.supportedLanguages);
+    }
+
+    // Заменитель онлайн-игроков
+    static List<StandInPlayer> players(int count)
+    {
+        List<StandInPlayer> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            players.add(new StandInPlayer(new UUID(0x5EEDL, i), CLIENT_LOCALES[i % CLIENT_LOCALES.length], "Player" + i));
+        }
+        return players;
+    }
+
+    static MessageType messageType(int index)
+    {
+        boolean clickable = (index & 1) == 0;
+        List<String> clickValues = clickable ? List.of("/rules", "/spawn", "/help") : List.of();
+        return new MessageType("Type" + index, messagesByLang(index), clickValues, interval(index), clickable, "COMMAND");
+    }
+
+    // Тип с весами сообщений и режимом ротации, как из секции конфига
+    static MessageType messageType(int index, double[] weights, String rotation)
+    {
+        Config.MessageConfig config = new Config.MessageConfig(messagesByLang(index), List.of(), interval(index), false, "COMMAND");
+        config.weights = weights;
+        config.rotation = rotation;
+        return new MessageType("Type" + index, config);
+    }
+
+    private static Map<String, List<String>> messagesByLang(int index)
+    {
+        Map<String, List<String>> messagesByLang = new HashMap<>();
+        for (String lang : List.of("ru", "en", "de", "pt"))
+        {
+            List<String> texts = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+            {
+                texts.add("§6[Type " + index + "] §e" + lang + " message " + i + " §b§nClick here!");
+            }
+            messagesByLang.put(lang, texts);
+        }
+        return messagesByLang;
+    }
+
+    // Интервалы как у типов по умолчанию: 180 / 300 / 600 секунд
+    private static int interval(int index)
+    {
+        return 180 + (index % 3) * 120 + (index % 7);
+    }
+
+    static List<MessageType> messageTypes(int count)
+    {
+        List<MessageType> types = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            types.add(messageType(i));
+        }
+        return types;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.examplemod;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.protocol.game.ClientboundSystemChatPacket;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рассылка одного типа: MessageScheduler.prepareBroadcast + PreparedBroadcast.deliver на заменителях игроков
+ * в режимах PER_PLAYER и SHARED, а также сериализация через SharedPacketBroadcaster.encode на Component
+ * из таблиц типа - пакет на каждого игрока против одного пакета на строку языка.
+ * Счетчик encodes показывает число кодирований за рассылку
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BroadcastBenchmark
+{
+    @Param({"10", "100", "1000", "5000"})
+    public int players;
+
+    private ClientboundSystemChatPacket[] packetsByRow;
+    private int[] playerRows;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Encodes
+    {
+        public long encodes;
+
+        @Setup(Level.Iteration)
+        public void clean()
+        {
+            encodes = 0;
+        }
+    }
+
+    // Получатели и тип для prepareAndDeliver; режим рассылки - только для этого бенчмарка
+    @State(Scope.Benchmark)
+    public static class Delivery
+    {
+        @Param({"PER_PLAYER", "SHARED"})
+        public String mode;
+
+        List<NotifyRecipient> recipients;
+        MessageType messageType;
+
+        @Setup
+        public void setup(BroadcastBenchmark benchmark)
+        {
+            Config.broadcastMode = mode;
+            recipients = new ArrayList<>(BenchmarkFixtures.players(benchmark.players));
+            messageType = BenchmarkFixtures.messageType(0);
+        }
+    }
+
+    @Setup
+    public void setup()
+    {
+        BenchmarkFixtures.configureLanguages();
+        MessageScheduler.resetLanguages();
+        MessageType messageType = BenchmarkFixtures.messageType(0);
+        packetsByRow = new ClientboundSystemChatPacket[messageType.getLanguageRowCount()];
+        for (int row = 0; row < packetsByRow.length; row++)
+        {
+            packetsByRow[row] = new ClientboundSystemChatPacket(messageType.getComponent(row, 0), false);
+        }
+
+        // Строка языка каждого игрока - тем же путем, что в prepareBroadcast
+        List<BenchmarkFixtures.StandInPlayer> playerList = BenchmarkFixtures.players(players);
+        playerRows = new int[players];
+        for (int i = 0; i < players; i++)
+        {
+            BenchmarkFixtures.StandInPlayer player = playerList.get(i);
+            playerRows[i] = messageType.getLanguageRow(MessageScheduler.getPlayerLanguageId(player.uuid, player.locale, 1_000_000L));
+        }
+    }
+
+    @Benchmark
+    public void prepareAndDeliver(Delivery delivery, Blackhole blackhole)
+    {
+        PreparedBroadcast broadcast = MessageScheduler.prepareBroadcast(delivery.messageType, 0L, delivery.recipients, null);
+        broadcast.deliver();
+        blackhole.consume(broadcast);
+    }
+
+    @Benchmark
+    public void encodePerPlayer(Encodes counter, Blackhole blackhole)
+    {
+        for (int row : playerRows)
+        {
+            ByteBuf encoded = SharedPacketBroadcaster.encode(packetsByRow[row]);
+            counter.encodes++;
+            blackhole.consume(encoded);
+            encoded.release();
+        }
+    }
+
+    @Benchmark
+    public void encodePerRow(Encodes counter, Blackhole blackhole)
+    {
+        ByteBuf[] encodedByRow = new ByteBuf[packetsByRow.length];
+        for (int row : playerRows)
+        {
+            if (encodedByRow[row] == null)
+            {
+                encodedByRow[row] = SharedPacketBroadcaster.encode(packetsByRow[row]);
+                counter.encodes++;
+            }
+
+            // Дубликат, который SharedPacketBroadcaster.send отдает каналу каждого игрока группы
+            ByteBuf duplicate = encodedByRow[row].retainedDuplicate();
+            blackhole.consume(duplicate);
+            duplicate.release();
+        }
+
+        for (ByteBuf encoded : encodedByRow)
+        {
+            if (encoded != null)
+                encoded.release();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.examplemod;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getPlayerLanguageCode: определение языка всех игроков за одну рассылку.
+ * cached - язык проверялся недавно (обычный случай), recheck - истек интервал проверки и локаль разбирается заново
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LanguageLookupBenchmark
+{
+    // Интервал перепроверки языка в MessageScheduler - 300 секунд
+    private static final long RECHECK_STEP_MILLIS = 301_000L;
+
+    @Param({"10", "100", "1000", "5000"})
+    public int players;
+
+    private List<BenchmarkFixtures.StandInPlayer> playerList;
+    private long now;
+
+    @Setup
+    public void setup()
+    {
+        BenchmarkFixtures.configureLanguages();
+        MessageScheduler.resetLanguages();
+        playerList = BenchmarkFixtures.players(players);
+        now = 1_000_000L;
+        for (BenchmarkFixtures.StandInPlayer player : playerList)
+        {
+            MessageScheduler.getPlayerLanguageId(player.uuid, player.locale, now);
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole)
+    {
+        for (BenchmarkFixtures.StandInPlayer player : playerList)
+        {
+            blackhole.consume(MessageScheduler.getPlayerLanguageId(player.uuid, player.locale, now));
+        }
+    }
+
+    @Benchmark
+    public void recheck(Blackhole blackhole)
+    {
+        // Каждый вызов сдвигает время за интервал проверки - все игроки перепроверяются
+        now += RECHECK_STEP_MILLIS;
+        for (BenchmarkFixtures.StandInPlayer player : playerList)
+        {
+            blackhole.consume(MessageScheduler.getPlayerLanguageId(player.uuid, player.locale, now));
+        }
+    }
+}
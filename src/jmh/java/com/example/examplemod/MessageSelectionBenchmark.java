@@ -0,0 +1,68 @@
+package com.example.examplemod;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageType.getRandomMessageForLang, выбор готового Component для строки языка,
+ * взвешенный выбор по таблице алиасов и ротация без повторов для игрока
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MessageSelectionBenchmark
+{
+    // pt_br - региональный вариант без своих текстов (fallback на pt), fr - неподдерживаемый язык
+    @Param({"ru", "pt_br", "fr"})
+    public String lang;
+
+    private MessageType messageType;
+    private MessageType weightedType;
+    private MessageType shuffledType;
+    private int row;
+    private long rotationKey;
+
+    @Setup
+    public void setup()
+    {
+        BenchmarkFixtures.configureLanguages();
+        messageType = BenchmarkFixtures.messageType(0);
+        row = messageType.getLanguageRow(Config.getLanguageId(lang));
+        weightedType = BenchmarkFixtures.messageType(0, new double[] { 5, 1, 1, 2, 1 }, "RANDOM");
+        shuffledType = BenchmarkFixtures.messageType(0, new double[0], "SHUFFLE");
+        // Слот 42, токен 1 - как у записи игрока в PlayerLanguageStore
+        rotationKey = (1L << 32) | 42;
+    }
+
+    @Benchmark
+    public String randomMessageForLang()
+    {
+        return messageType.getRandomMessageForLang(lang);
+    }
+
+    @Benchmark
+    public Object componentForRow()
+    {
+        return messageType.getComponent(row, messageType.pickMessageIndex(row));
+    }
+
+    @Benchmark
+    public int weightedIndexForRow()
+    {
+        return weightedType.pickMessageIndex(row);
+    }
+
+    @Benchmark
+    public int shuffledIndexForPlayer()
+    {
+        return shuffledType.nextMessageIndexFor(row, rotationKey);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.examplemod;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тик планировщика (MessageScheduler.runTick) в зависимости от числа типов: проверка ближайшего дедлайна
+ * на каждом тике, а на тиках отправки - подготовка и доставка рассылки заменителям игроков.
+ * Один вызов - один тик. Без конвейера (prepareAheadTicks = 0) вся работа идет в потоке бенчмарка
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SchedulerTickBenchmark
+{
+    @Param({"3", "100", "1000"})
+    public int types;
+
+    @Param({"100"})
+    public int players;
+
+    private long tick;
+
+    @Setup
+    public void setup()
+    {
+        BenchmarkFixtures.configureLanguages();
+        Config.prepareAheadTicks = 0;
+        MessageScheduler.resetLanguages();
+        tick = 0;
+        MessageScheduler.install(BenchmarkFixtures.messageTypes(types), BenchmarkFixtures.players(players), tick);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        MessageScheduler.reset();
+    }
+
+    @Benchmark
+    public void tick()
+    {
+        MessageScheduler.runTick(null, ++tick);
+    }
+}
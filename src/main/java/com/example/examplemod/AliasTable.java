@@ -0,0 +1,93 @@
+package com.example.examplemod;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Взвешенный выбор индекса за O(1) (метод алиасов Уокера/Воуза).
+ * Таблица строится один раз при компиляции типа; при равных весах выбор сводится к одному nextInt
+ */
+public final class AliasTable
+{
+    private final double[] probability;
+    private final int[] alias;
+    private final boolean uniform;
+
+    /**
+     * weights[i] - вес индекса i; недостающие, нулевые и отрицательные веса считаются равными 1
+     */
+    public AliasTable(double[] weights, int size)
+    {
+        double[] normalized = new double[size];
+        double total = 0.0;
+        boolean allEqual = true;
+        for (int i = 0; i < size; i++)
+        {
+            double weight = i < weights.length && weights[i] > 0.0 ? weights[i] : 1.0;
+            normalized[i] = weight;
+            total += weight;
+            allEqual &= weight == normalized[0];
+        }
+
+        this.uniform = allEqual;
+        this.probability = new double[size];
+        this.alias = new int[size];
+        if (uniform)
+            return;
+
+        // Масштабируем так, чтобы средний вес был 1, и делим индексы на "малые" и "большие"
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++)
+        {
+            normalized[i] = normalized[i] * size / total;
+            if (normalized[i] < 1.0)
+                small[smallCount++] = i;
+            else
+                large[largeCount++] = i;
+        }
+
+        // Каждый малый индекс добирает до 1 из большого, который становится его алиасом
+        while (smallCount > 0 && largeCount > 0)
+        {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = normalized[less];
+            alias[less] = more;
+
+            normalized[more] = normalized[more] + normalized[less] - 1.0;
+            if (normalized[more] < 1.0)
+                small[smallCount++] = more;
+            else
+                large[largeCount++] = more;
+        }
+
+        // Остатки из-за погрешности округления - вероятность 1
+        while (largeCount > 0)
+        {
+            probability[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0)
+        {
+            probability[small[--smallCount]] = 1.0;
+        }
+    }
+
+    public int size()
+    {
+        return alias.length;
+    }
+
+    /**
+     * Случайный индекс с учетом весов. Безопасно из любого потока
+     */
+    public int sample()
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(alias.length);
+        if (uniform)
+            return column;
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.examplemod;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Сегмент аудитории типа сообщения из конфига: минимальный уровень прав, измерения,
+ * только новые игроки и исключаемые команды. Разрешается в игроков через AudienceIndex
+ */
+public final class AudienceFilter
+{
+    public static final AudienceFilter ALL = new AudienceFilter(0, List.of(), false, List.of());
+
+    private final int minPermission;
+    private final List<String> dimensions;
+    private final boolean newPlayersOnly;
+    private final List<String> excludeTeams;
+
+    public AudienceFilter(int minPermission, List<String> dimensions, boolean newPlayersOnly, List<String> excludeTeams)
+    {
+        this.minPermission = Math.max(0, Math.min(AudienceIndex.MAX_PERMISSION, minPermission));
+        this.dimensions = List.copyOf(dimensions);
+        this.newPlayersOnly = newPlayersOnly;
+        this.excludeTeams = List.copyOf(excludeTeams);
+    }
+
+    /**
+     * Фильтр без ограничений - рассылка всем онлайн-игрокам
+     */
+    public boolean isAll()
+    {
+        return minPermission == 0 && dimensions.isEmpty() && !newPlayersOnly && excludeTeams.isEmpty();
+    }
+
+    public int getMinPermission()
+    {
+        return minPermission;
+    }
+
+    public List<String> getDimensions()
+    {
+        return dimensions;
+    }
+
+    public boolean isNewPlayersOnly()
+    {
+        return newPlayersOnly;
+    }
+
+    public List<String> getExcludeTeams()
+    {
+        return excludeTeams;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if (this == other)
+            return true;
+        if (!(other instanceof AudienceFilter filter))
+            return false;
+        return minPermission == filter.minPermission
+                && newPlayersOnly == filter.newPlayersOnly
+                && dimensions.equals(filter.dimensions)
+                && excludeTeams.equals(filter.excludeTeams);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(minPermission, dimensions, newPlayersOnly, excludeTeams);
+    }
+}
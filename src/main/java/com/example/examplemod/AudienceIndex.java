@@ -0,0 +1,308 @@
+package com.example.examplemod;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.stats.Stats;
+import net.minecraft.world.scores.PlayerTeam;
+import net.minecraft.world.scores.Team;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Индекс аудитории: у каждого онлайн-игрока есть слот, а для каждого сегмента (уровень прав, измерение,
+ * новые игроки, команда) - битовое множество слотов. Множества обновляются по событиям входа/выхода,
+ * смены измерения и прав, поэтому рассылка находит свою аудиторию операциями над словами битсетов,
+ * а не проверкой каждого игрока. Используется только с основного потока
+ */
+public final class AudienceIndex
+{
+    public static final int MAX_PERMISSION = 4;
+
+    private NotifyRecipient[] recipients = new NotifyRecipient[64];
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private final Map<String, Integer> slotsByName = new HashMap<>();
+    private final BitSet occupied = new BitSet();
+
+    // Игрок с уровнем прав N входит только в byPermission[N]
+    private final BitSet[] byPermission = new BitSet[MAX_PERMISSION + 1];
+    private final Map<String, BitSet> byDimension = new HashMap<>();
+    private final BitSet newPlayers = new BitSet();
+    // Тик, до которого игрок считается новым
+    private long[] newUntilTick = new long[64];
+    // Участники команд, упомянутых в excludeTeams типов (пересобираются в refresh)
+    private final Map<String, BitSet> byTeam = new HashMap<>();
+
+    public AudienceIndex()
+    {
+        for (int level = 0; level <= MAX_PERMISSION; level++)
+        {
+            byPermission[level] = new BitSet();
+        }
+    }
+
+    public int size()
+    {
+        return slots.size();
+    }
+
+    /**
+     * Вход игрока (или повторное добавление после респавна - объект ServerPlayer меняется)
+     */
+    public void add(ServerPlayer player, long currentTick, int newPlayerTicks)
+    {
+        int slot = add(new PlayerRecipient(player));
+        byPermission[permissionLevel(player)].set(slot);
+        setDimension(slot, dimensionId(player));
+
+        // Команда игрока - сразу, а не через refresh: иначе до него игрок из excludeTeams получал бы сообщения
+        Team team = player.getTeam();
+        BitSet members = team != null ? byTeam.get(team.getName()) : null;
+        if (members != null)
+            members.set(slot);
+
+        // Новый игрок - наиграно меньше newPlayerTicks тиков
+        int playedTicks = player.getStats().getValue(Stats.CUSTOM.get(Stats.PLAY_TIME));
+        if (playedTicks < newPlayerTicks)
+        {
+            newPlayers.set(slot);
+            newUntilTick[slot] = currentTick + (newPlayerTicks - playedTicks);
+        }
+    }
+
+    /**
+     * Занимает слот получателя без сегментов (права, измерение, команда) и возвращает его.
+     * Повторное добавление того же UUID сбрасывает сегменты слота. Сегменты заполняет add(ServerPlayer);
+     * напрямую вызывается бенчмарками
+     */
+    int add(NotifyRecipient recipient)
+    {
+        Integer existing = slots.get(recipient.getUUID());
+        int slot = existing != null ? existing : occupied.nextClearBit(0);
+        if (existing == null)
+        {
+            ensureCapacity(slot);
+            slots.put(recipient.getUUID(), slot);
+            occupied.set(slot);
+        }
+        else
+        {
+            // Респавн: права, измерение, статус нового и команда пересчитываются
+            clearSegments(slot);
+            clearTeams(slot);
+        }
+
+        recipients[slot] = recipient;
+        slotsByName.put(recipient.getPlayerName(), slot);
+        return slot;
+    }
+
+    public void remove(UUID player)
+    {
+        Integer slot = slots.remove(player);
+        if (slot == null)
+            return;
+
+        clearSegments(slot);
+        clearTeams(slot);
+        slotsByName.remove(recipients[slot].getPlayerName());
+        recipients[slot] = null;
+        occupied.clear(slot);
+    }
+
+    public void clear()
+    {
+        slots.clear();
+        slotsByName.clear();
+        occupied.clear();
+        Arrays.fill(recipients, null);
+        for (BitSet level : byPermission)
+        {
+            level.clear();
+        }
+        byDimension.clear();
+        newPlayers.clear();
+        byTeam.clear();
+    }
+
+    public void updateDimension(ServerPlayer player)
+    {
+        Integer slot = slots.get(player.getUUID());
+        if (slot != null)
+            setDimension(slot, dimensionId(player));
+    }
+
+    public void updatePermission(ServerPlayer player, int level)
+    {
+        Integer slot = slots.get(player.getUUID());
+        if (slot == null)
+            return;
+
+        for (BitSet permission : byPermission)
+        {
+            permission.clear(slot);
+        }
+        byPermission[Math.max(0, Math.min(MAX_PERMISSION, level))].set(slot);
+    }
+
+    /**
+     * Команды из excludeTeams текущих типов (после загрузки конфига): вход игрока сразу попадает в их множества,
+     * а состав уже онлайн-игроков заполняет ближайший refresh
+     */
+    public void track(Set<String> trackedTeams)
+    {
+        byTeam.keySet().retainAll(trackedTeams);
+        for (String teamName : trackedTeams)
+        {
+            byTeam.computeIfAbsent(teamName, key -> new BitSet());
+        }
+    }
+
+    /**
+     * Периодическое обновление: истекший статус нового игрока и состав отслеживаемых команд
+     * (в Forge нет события изменения команды)
+     */
+    public void refresh(MinecraftServer server, long currentTick, Set<String> trackedTeams)
+    {
+        for (int slot = newPlayers.nextSetBit(0); slot >= 0; slot = newPlayers.nextSetBit(slot + 1))
+        {
+            if (currentTick >= newUntilTick[slot])
+                newPlayers.clear(slot);
+        }
+
+        byTeam.keySet().retainAll(trackedTeams);
+        for (String teamName : trackedTeams)
+        {
+            BitSet members = byTeam.computeIfAbsent(teamName, key -> new BitSet());
+            members.clear();
+            PlayerTeam team = server.getScoreboard().getPlayerTeam(teamName);
+            if (team == null)
+                continue;
+
+            for (String member : team.getPlayers())
+            {
+                Integer slot = slotsByName.get(member);
+                if (slot != null)
+                    members.set(slot);
+            }
+        }
+    }
+
+    /**
+     * Получатели сегмента: пересечение множеств прав, измерений и новых игроков минус команды.
+     * Для AudienceFilter.ALL - все онлайн-игроки. Возвращает новый список (снимок для фоновой подготовки)
+     */
+    public List<NotifyRecipient> resolve(AudienceFilter filter)
+    {
+        BitSet audience = (BitSet) occupied.clone();
+
+        if (filter.getMinPermission() > 0)
+        {
+            BitSet permitted = new BitSet();
+            for (int level = filter.getMinPermission(); level <= MAX_PERMISSION; level++)
+            {
+                permitted.or(byPermission[level]);
+            }
+            audience.and(permitted);
+        }
+
+        if (!filter.getDimensions().isEmpty())
+        {
+            BitSet inDimensions = new BitSet();
+            for (String dimension : filter.getDimensions())
+            {
+                BitSet members = byDimension.get(dimension);
+                if (members != null)
+                    inDimensions.or(members);
+            }
+            audience.and(inDimensions);
+        }
+
+        if (filter.isNewPlayersOnly())
+            audience.and(newPlayers);
+
+        for (String team : filter.getExcludeTeams())
+        {
+            BitSet members = byTeam.get(team);
+            if (members != null)
+                audience.andNot(members);
+        }
+
+        List<NotifyRecipient> result = new ArrayList<>(audience.cardinality());
+        for (int slot = audience.nextSetBit(0); slot >= 0; slot = audience.nextSetBit(slot + 1))
+        {
+            result.add(recipients[slot]);
+        }
+        return result;
+    }
+
+    /**
+     * Команды, которые нужно отслеживать для excludeTeams текущих типов
+     */
+    public static Set<String> collectTeams(Iterable<MessageType> messageTypes)
+    {
+        Set<String> teams = new HashSet<>();
+        for (MessageType messageType : messageTypes)
+        {
+            teams.addAll(messageType.getAudience().getExcludeTeams());
+        }
+        return teams;
+    }
+
+    private void setDimension(int slot, String dimension)
+    {
+        for (BitSet members : byDimension.values())
+        {
+            members.clear(slot);
+        }
+        byDimension.computeIfAbsent(dimension, key -> new BitSet()).set(slot);
+    }
+
+    private void clearSegments(int slot)
+    {
+        for (BitSet level : byPermission)
+        {
+            level.clear(slot);
+        }
+        for (BitSet members : byDimension.values())
+        {
+            members.clear(slot);
+        }
+        newPlayers.clear(slot);
+    }
+
+    private void clearTeams(int slot)
+    {
+        for (BitSet members : byTeam.values())
+        {
+            members.clear(slot);
+        }
+    }
+
+    private void ensureCapacity(int slot)
+    {
+        if (slot < recipients.length)
+            return;
+
+        int capacity = Math.max(recipients.length * 2, slot + 1);
+        recipients = Arrays.copyOf(recipients, capacity);
+        newUntilTick = Arrays.copyOf(newUntilTick, capacity);
+    }
+
+    private static int permissionLevel(ServerPlayer player)
+    {
+        return Math.max(0, Math.min(MAX_PERMISSION, player.getServer().getProfilePermissions(player.getGameProfile())));
+    }
+
+    private static String dimensionId(ServerPlayer player)
+    {
+        return player.level().dimension().location().toString();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.examplemod;
+
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Конвейер подготовки рассылок: выбор сообщений, определение языков, группировка аудитории
+ * и кодирование пакетов выполняются заранее на фоновом потоке.
+ * Готовый результат передается основному потоку через ограниченную очередь
+ */
+public final class BroadcastPipeline
+{
+    private static final int READY_QUEUE_CAPACITY = 64;
+    // Сверх prepareAheadTicks: рассылка, подготовленная раньше, собрана для устаревшей аудитории
+    // (тип откладывался при лагах или ждал окончания предыдущей доставки) и готовится заново
+    private static final long STALE_SLACK_TICKS = 20L;
+
+    // Подготовленная рассылка с поколением конвейера и тиком, на котором снята ее аудитория
+    private static final class Ready
+    {
+        final PreparedBroadcast broadcast;
+        final int generation;
+        final long preparedTick;
+
+        Ready(PreparedBroadcast broadcast, int generation, long preparedTick)
+        {
+            this.broadcast = broadcast;
+            this.generation = generation;
+            this.preparedTick = preparedTick;
+        }
+    }
+
+    private static final ArrayBlockingQueue<Ready> ready = new ArrayBlockingQueue<>(READY_QUEUE_CAPACITY);
+    // Готовые рассылки по типам (используется только основным потоком)
+    private static final Map<MessageType, Ready> prepared = new IdentityHashMap<>();
+    // Увеличивается в discard/clear: результаты подготовок, начатых раньше, отбрасываются в drainReady,
+    // иначе рассылка удаленного или пересобранного типа осталась бы в prepared навсегда. Только основной поток
+    private static int generation;
+    private static ExecutorService executor;
+
+    private BroadcastPipeline()
+    {
+    }
+
+    /**
+     * Ставит подготовку рассылки в фоновый поток. players - снимок списка игроков, serverValues - значения
+     * серверных переменных шаблонов (оба сняты на основном потоке на тике currentTick)
+     */
+    public static void submit(MessageType messageType, long fireTick, long currentTick, List<NotifyRecipient> players,
+                              String[] serverValues)
+    {
+        if (executor == null)
+        {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Notify-Preparer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        int submitGeneration = generation;
+        executor.execute(() -> {
+            try
+            {
+                PreparedBroadcast broadcast = MessageScheduler.prepareBroadcast(messageType, fireTick, players, serverValues);
+                // Очередь переполнена - основной поток подготовит рассылку сам в момент отправки
+                if (!ready.offer(new Ready(broadcast, submitGeneration, currentTick)))
+                {
+                    broadcast.release();
+                }
+            }
+            catch (Exception e)
+            {
+                ExampleMod.LOGGER.error("[Notify] Failed to prepare broadcast '{}': {}", messageType.getName(), e.toString());
+            }
+        });
+    }
+
+    /**
+     * Забирает готовые рассылки из очереди. Вызывается каждый тик, O(1) если очередь пуста
+     */
+    public static void drainReady()
+    {
+        Ready result;
+        while ((result = ready.poll()) != null)
+        {
+            if (result.generation != generation)
+            {
+                result.broadcast.release();
+                continue;
+            }
+
+            Ready previous = prepared.put(result.broadcast.getMessageType(), result);
+            if (previous != null)
+            {
+                previous.broadcast.release();
+            }
+        }
+    }
+
+    /**
+     * Возвращает заранее подготовленную рассылку для тика отправки или null, если она не успела/устарела:
+     * подготовлена для другого тика или дольше prepareAheadTicks + STALE_SLACK_TICKS назад
+     */
+    public static PreparedBroadcast take(MessageType messageType, long fireTick, long currentTick)
+    {
+        Ready result = prepared.remove(messageType);
+        if (result == null)
+            return null;
+
+        if (result.broadcast.getFireTick() != fireTick
+                || currentTick - result.preparedTick > Config.prepareAheadTicks + STALE_SLACK_TICKS)
+        {
+            result.broadcast.release();
+            return null;
+        }
+        return result.broadcast;
+    }
+
+    /**
+     * Сбрасывает подготовленную рассылку типа (тип изменен или удален при перезагрузке конфига)
+     */
+    public static void discard(MessageType messageType)
+    {
+        drainReady();
+        generation++;
+        Ready result = prepared.remove(messageType);
+        if (result != null)
+        {
+            result.broadcast.release();
+        }
+    }
+
+    /**
+     * Сбрасывает все подготовленные рассылки (при перезагрузке конфига)
+     */
+    public static void clear()
+    {
+        drainReady();
+        generation++;
+        for (Ready result : prepared.values())
+        {
+            result.broadcast.release();
+        }
+        prepared.clear();
+    }
+
+    /**
+     * Останавливает фоновый поток (при остановке сервера)
+     */
+    public static void shutdown()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+            executor = null;
+        }
+        clear();
+    }
+}
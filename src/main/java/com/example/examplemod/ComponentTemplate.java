@@ -0,0 +1,112 @@
+package com.example.examplemod;
+
+import net.minecraft.network.chat.ClickEvent;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.HoverEvent;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+
+/**
+ * Сообщение с переменными, скомпилированное при сборке типа в дерево Component с ячейками для подстановок:
+ * разметка разобрана заранее, у каждого участка свой готовый стиль и шаблон текста. При отправке остается
+ * подставить значения в текст участков и собрать литералы - MarkupCompiler на этом пути не вызывается.
+ * Значения переменных попадают в текст как есть и разметкой не считаются
+ */
+public final class ComponentTemplate
+{
+    // Стиль корня (клик всей строки); для строки без разметки - стиль единственного участка
+    private final Style rootStyle;
+    // false - строка без разметки: один литерал без корня, как у Component.literal(message)
+    private final boolean markup;
+    private final Style[] styles;
+    private final MessageTemplate[] texts;
+    private final boolean playerVariables;
+
+    private ComponentTemplate(Style rootStyle, boolean markup, Style[] styles, MessageTemplate[] texts)
+    {
+        this.rootStyle = rootStyle;
+        this.markup = markup;
+        this.styles = styles;
+        this.texts = texts;
+        boolean player = false;
+        for (MessageTemplate text : texts)
+        {
+            player |= text.hasPlayerVariables();
+        }
+        this.playerVariables = player;
+    }
+
+    /**
+     * Компилирует текст или возвращает null, если ни в одном участке нет переменных (тогда хватает готового Component).
+     * lineClick/lineHover - клик всей строки из clickValues; со своими <click> в разметке не применяется
+     */
+    public static ComponentTemplate compile(String text, ClickEvent lineClick, HoverEvent lineHover)
+    {
+        Style lineStyle = lineClick != null ? Style.EMPTY.withClickEvent(lineClick).withHoverEvent(lineHover) : Style.EMPTY;
+        MarkupCompiler.Markup parsed = MarkupCompiler.parse(text);
+        if (parsed == null)
+        {
+            MessageTemplate template = MessageTemplate.compile(text);
+            return template != null
+                    ? new ComponentTemplate(lineStyle, false, new Style[] { lineStyle }, new MessageTemplate[] { template })
+                    : null;
+        }
+
+        int count = parsed.spans.size();
+        Style[] styles = new Style[count];
+        MessageTemplate[] texts = new MessageTemplate[count];
+        boolean variables = false;
+        for (int i = 0; i < count; i++)
+        {
+            MarkupCompiler.Span span = parsed.spans.get(i);
+            MessageTemplate template = MessageTemplate.compile(span.text);
+            variables |= template != null;
+            styles[i] = span.style;
+            texts[i] = template != null ? template : MessageTemplate.literal(span.text);
+        }
+        if (!variables)
+            return null;
+        return new ComponentTemplate(parsed.clickSpans ? Style.EMPTY : lineStyle, true, styles, texts);
+    }
+
+    public boolean hasPlayerVariables()
+    {
+        return playerVariables;
+    }
+
+    /**
+     * Подставляет серверные переменные во все участки (один раз на рассылку)
+     */
+    public ComponentTemplate bindServer(String[] serverValues)
+    {
+        MessageTemplate[] bound = new MessageTemplate[texts.length];
+        for (int i = 0; i < texts.length; i++)
+        {
+            bound[i] = texts[i].bindServer(serverValues);
+        }
+        return new ComponentTemplate(rootStyle, markup, styles, bound);
+    }
+
+    /**
+     * Component для получателя: подставляет переменные игрока (серверные должны быть уже подставлены).
+     * Без переменных игрока player может быть null - результат общий для всей группы
+     */
+    public Component resolve(NotifyRecipient player)
+    {
+        if (!markup)
+            return Component.literal(text(0, player)).withStyle(styles[0]);
+
+        MutableComponent root = Component.literal("").withStyle(rootStyle);
+        for (int i = 0; i < texts.length; i++)
+        {
+            root.append(Component.literal(text(i, player)).withStyle(styles[i]));
+        }
+        return root;
+    }
+
+    private String text(int span, NotifyRecipient player)
+    {
+        MessageTemplate text = texts[span];
+        return text.hasPlayerVariables() ? text.resolve(player) : text.getText();
+    }
+}
@@ -1,14 +1,17 @@
 package com.example.examplemod;
 
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
 import com.electronwill.nightconfig.core.file.CommentedFileConfig;
 import com.electronwill.nightconfig.core.io.WritingMode;
 import net.minecraftforge.fml.loading.FMLPaths;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Конфигурация мода - использует прямое чтение TOML без ForgeConfigSpec
@@ -17,12 +20,46 @@ import java.util.Map;
 public class Config
 {
     private static final String CONFIG_FILE_NAME = "notify_mod-common.toml";
+    private static final String SCHEDULE_FILE_NAME = "notify_mod-schedule.bin";
+    private static final String MUTES_DIRECTORY = "notify/mutes";
     private static CommentedFileConfig config;
 
     // Публичные статические поля для доступа к конфигурации
     public static List<String> messageTypes = new ArrayList<>();
     public static List<String> supportedLanguages = new ArrayList<>();
     public static Map<String, MessageConfig> messageConfigs = new HashMap<>();
+    // Режим рассылки: "PER_PLAYER" (пакет на каждого игрока) или "SHARED" (один закодированный пакет на язык)
+    public static String broadcastMode = "PER_PLAYER";
+    // За сколько тиков до отправки готовить рассылку в фоновом потоке (0 - готовить на основном потоке)
+    public static int prepareAheadTicks = 40;
+    // Следить за файлом конфига и применять изменения без /notify reload
+    public static boolean watchConfig = false;
+    // Сообщения в файлах config/notify/<lang>.toml: загружать язык при входе первого игрока с ним (иначе все сразу)
+    // и выгружать языки без игроков через languageEvictSeconds секунд (0 - не выгружать)
+    public static boolean languageFilesLazy = true;
+    public static int languageEvictSeconds = 600;
+    // Сколько минут наигранного времени игрок считается новым (сегмент newPlayersOnly)
+    public static int newPlayerMinutes = 60;
+    // Ограничение при лагах: выше softMspt откладываются типы LOW, выше hardMspt - и NORMAL;
+    // lagBatch - игроков за тик для типов без deliveryBatch, пока сервер лагает
+    public static boolean throttleEnabled = true;
+    public static double throttleSoftMspt = 40.0;
+    public static double throttleHardMspt = 50.0;
+    public static int throttleLagBatch = 100;
+    // Журнал доставки: файл (относительно папки сервера), UUID получателей, ротация по размеру и число старых файлов
+    public static boolean auditEnabled = false;
+    public static String auditFile = "logs/notify-audit.log";
+    public static boolean auditPerPlayer = false;
+    public static int auditMaxFileMegabytes = 10;
+    public static int auditMaxFiles = 5;
+    // Периодическая выгрузка метрик: интервал в секундах (0 - выключено), формат PROMETHEUS или JSON, путь к файлу
+    public static int metricsDumpIntervalSeconds = 0;
+    public static String metricsDumpFormat = "PROMETHEUS";
+    public static String metricsDumpFile = "notify_metrics.prom";
+    // Разрешение локалей клиентов в id языков (индекс в supportedLanguages) с цепочками fallback
+    public static volatile LocaleResolver locales = new LocaleResolver(List.of());
+    // Типы из основного конфига без текстов из файлов языков (messageConfigs = они + LanguageCorpus)
+    private static Map<String, MessageConfig> baseMessageConfigs = new HashMap<>();
 
     // Класс для хранения конфигурации одного типа сообщения
     public static class MessageConfig
@@ -32,6 +69,22 @@ public class Config
         public int intervalSeconds;
         public boolean clickable;
         public String clickType;  // "COMMAND" или "URL"
+        // Растянутая доставка: игроков за тик (0 - всем сразу) и бюджет времени на тик в наносекундах (0 - без ограничения)
+        public int deliveryBatch = 0;
+        public long deliveryBudgetNanos = 0;
+        // Условие отправки (condition): исходное выражение и скомпилированное дерево, по умолчанию - всегда
+        public String conditionExpression = "";
+        public NotifyCondition condition = NotifyCondition.ALWAYS;
+        // Веса сообщений по индексу (пусто - равные) и порядок выбора: "RANDOM" или "SHUFFLE" (без повторов для игрока)
+        public double[] weights = new double[0];
+        public String rotation = "RANDOM";
+        // Сегмент получателей (по умолчанию - все игроки)
+        public AudienceFilter audience = AudienceFilter.ALL;
+        // Приоритет при лагах сервера (TickThrottle.PRIORITY_*): LOW откладывается первым, HIGH - никогда
+        public int priority = TickThrottle.PRIORITY_NORMAL;
+        // Расписание по часам (schedule, cron): исходное выражение и скомпилированные маски; null - отправка по interval
+        public String scheduleExpression = "";
+        public CronSchedule schedule = null;
 
         public MessageConfig(Map<String, List<String>> messagesByLang, List<String> clickValues, 
                            int intervalSeconds, boolean clickable, String clickType)
@@ -43,6 +96,76 @@ public class Config
             this.clickType = clickType;
         }
         
+        /**
+         * Компилирует условие один раз; с ошибкой в выражении тип отправляется без условия
+         */
+        public void setCondition(String type, String expression)
+        {
+            conditionExpression = expression;
+            try
+            {
+                condition = NotifyCondition.compile(expression);
+            }
+            catch (IllegalArgumentException e)
+            {
+                condition = NotifyCondition.ALWAYS;
+                ExampleMod.LOGGER.error("[Notify] Invalid condition for message type '{}': {}", type, e.getMessage());
+            }
+        }
+        
+        /**
+         * Компилирует расписание один раз; с ошибкой в выражении тип отправляется по interval
+         */
+        public void setSchedule(String type, String expression)
+        {
+            scheduleExpression = expression;
+            try
+            {
+                schedule = CronSchedule.compile(expression);
+            }
+            catch (IllegalArgumentException e)
+            {
+                schedule = null;
+                ExampleMod.LOGGER.error("[Notify] Invalid schedule for message type '{}': {}", type, e.getMessage());
+            }
+        }
+        
+        // Копия с другим набором сообщений по языкам
+        public MessageConfig withMessages(Map<String, List<String>> messages)
+        {
+            MessageConfig copy = new MessageConfig(messages, clickValues, intervalSeconds, clickable, clickType);
+            copy.deliveryBatch = deliveryBatch;
+            copy.deliveryBudgetNanos = deliveryBudgetNanos;
+            copy.conditionExpression = conditionExpression;
+            copy.condition = condition;
+            copy.weights = weights;
+            copy.rotation = rotation;
+            copy.audience = audience;
+            copy.priority = priority;
+            copy.scheduleExpression = scheduleExpression;
+            copy.schedule = schedule;
+            return copy;
+        }
+        
+        // Тип не изменился с прошлой загрузки (те же настройки) - используется при инкрементальной перезагрузке
+        public boolean sameAs(MessageConfig other)
+        {
+            return other != null
+                    && intervalSeconds == other.intervalSeconds
+                    && clickable == other.clickable
+                    && deliveryBatch == other.deliveryBatch
+                    && deliveryBudgetNanos == other.deliveryBudgetNanos
+                    && priority == other.priority
+                    && Objects.equals(clickType, other.clickType)
+                    && Objects.equals(conditionExpression, other.conditionExpression)
+                    && Objects.equals(scheduleExpression, other.scheduleExpression)
+                    && Objects.equals(rotation, other.rotation)
+                    && Objects.equals(audience, other.audience)
+                    && Arrays.equals(weights, other.weights)
+                    && Objects.equals(clickValues, other.clickValues)
+                    && Objects.equals(messagesByLang, other.messagesByLang);
+        }
+        
         // Получить сообщения для языка (с fallback на английский)
         public List<String> getMessagesForLang(String lang)
         {
@@ -63,7 +186,7 @@ public class Config
      */
     public static void load()
     {
-        Path configPath = FMLPaths.CONFIGDIR.get().resolve(CONFIG_FILE_NAME);
+        Path configPath = getConfigPath();
         
         // Если конфиг не существует - копируем из config-example.toml
         if (!java.nio.file.Files.exists(configPath))
@@ -90,41 +213,36 @@ public class Config
         }
         
         // Создаем конфиг
-        config = CommentedFileConfig.builder(configPath)
-                .sync()
-                .autosave()
-                .writingMode(WritingMode.REPLACE)
-                .build();
+        config = open(configPath);
         
-        config.load();
-        
-        // Если конфиг все еще пустой - создаем дефолтный программно
-        if (!config.contains("messageTypes"))
+        // Если TOML не менялся с прошлого запуска - берем разобранный результат из скомпилированного кэша
+        CorpusCache.Key key = CorpusCache.key(configPath);
+        Snapshot snapshot = CorpusCache.read(configPath, key, config);
+        if (snapshot == null)
         {
-            createDefaultConfig();
-            config.save();
+            config.load();
+            
+            // Если конфиг все еще пустой - создаем дефолтный программно
+            if (!config.contains("messageTypes"))
+            {
+                createDefaultConfig();
+                config.save();
+                key = CorpusCache.key(configPath);
+            }
+            
+            snapshot = parse(config);
+            CorpusCache.write(configPath, key, snapshot);
         }
         
+        snapshot.corpus = LanguageCorpus.prepare(snapshot.supportedLanguages, snapshot.languageFilesLazy);
+        
         // Загружаем значения
-        loadConfig();
+        apply(snapshot);
         
         ExampleMod.LOGGER.info("Config loaded from: " + configPath);
         ExampleMod.LOGGER.info("Message types: " + messageTypes.size());
     }
 
-    /**
-     * Перезагружает конфигурацию из файла
-     */
-    public static void reload()
-    {
-        if (config != null)
-        {
-            config.load();
-            loadConfig();
-            ExampleMod.LOGGER.info("Config reloaded! Message types: " + messageTypes.size());
-        }
-    }
-
     /**
      * Создает дефолтный конфиг
      */
@@ -158,46 +276,311 @@ public class Config
     }
 
     /**
-     * Загружает конфиг из CommentedFileConfig
+     * Разбирает файл конфига, используя скомпилированный кэш (CorpusCache), если TOML не менялся,
+     * и файлы языков (LanguageCorpus.prepare). Безопасно вне основного потока.
+     * При промахе кэша файл загружается, разбирается и кэш перезаписывается
      */
-    private static void loadConfig()
+    static Snapshot loadSnapshot(CommentedFileConfig source)
     {
-        messageTypes = new ArrayList<>(config.getOrElse("messageTypes", List.of("Donate", "Tips", "Rules")));
-        supportedLanguages = new ArrayList<>(config.getOrElse("supportedLanguages", List.of("ru", "en")));
-        messageConfigs.clear();
+        Path configPath = source.getNioPath();
+        CorpusCache.Key key = CorpusCache.key(configPath);
+        Snapshot snapshot = CorpusCache.read(configPath, key, source);
+        if (snapshot == null)
+        {
+            source.load();
+            snapshot = parse(source);
+            CorpusCache.write(configPath, key, snapshot);
+        }
+        snapshot.corpus = LanguageCorpus.prepare(snapshot.supportedLanguages, snapshot.languageFilesLazy);
+        return snapshot;
+    }
+
+    /**
+     * Результат разбора TOML. Собирается без изменения статических полей Config,
+     * поэтому разбор можно выполнять в фоновом потоке, а применение (apply) - на основном
+     */
+    public static final class Snapshot
+    {
+        CommentedFileConfig source;
+        List<String> messageTypes;
+        List<String> supportedLanguages;
+        Map<String, MessageConfig> messageConfigs;
+        String broadcastMode;
+        int prepareAheadTicks;
+        boolean watchConfig;
+        int metricsDumpIntervalSeconds;
+        String metricsDumpFormat;
+        String metricsDumpFile;
+        boolean languageFilesLazy;
+        int languageEvictSeconds;
+        int newPlayerMinutes;
+        boolean throttleEnabled;
+        double throttleSoftMspt;
+        double throttleHardMspt;
+        int throttleLagBatch;
+        boolean auditEnabled;
+        String auditFile;
+        boolean auditPerPlayer;
+        int auditMaxFileMegabytes;
+        int auditMaxFiles;
+        // Файлы языков, разобранные вместе со Snapshot (в кэш не пишутся)
+        LanguageCorpus.Corpus corpus;
+    }
 
-        for (String type : messageTypes)
+    /**
+     * Разбирает загруженный файл конфига в Snapshot. Не трогает статические поля - безопасно вне основного потока.
+     * Секция каждого типа ищется один раз, значения по умолчанию вычисляются только для отсутствующих ключей
+     */
+    static Snapshot parse(CommentedFileConfig source)
+    {
+        Snapshot snapshot = new Snapshot();
+        snapshot.source = source;
+        snapshot.messageTypes = new ArrayList<>(source.getOrElse("messageTypes", List.of("Donate", "Tips", "Rules")));
+        snapshot.supportedLanguages = new ArrayList<>(source.getOrElse("supportedLanguages", List.of("ru", "en")));
+        snapshot.messageConfigs = new HashMap<>();
+
+        UnmodifiableConfig messages = source.get("messages");
+        for (String type : snapshot.messageTypes)
         {
             String typeLower = type.toLowerCase();
+            UnmodifiableConfig section = messages != null ? messages.get(List.of(typeLower)) : null;
             
             Map<String, List<String>> messagesByLang = new HashMap<>();
             
-            // Загружаем сообщения для каждого языка
-            for (String lang : supportedLanguages)
+            // Загружаем сообщения для каждого языка (только заданные - остальные дополняются в mergeLanguages)
+            for (String lang : snapshot.supportedLanguages)
             {
-                String textsPath = "messages." + typeLower + "." + lang + ".texts";
-                List<String> messages = config.getOrElse(textsPath, getDefaultMessagesForType(typeLower, lang));
-                messagesByLang.put(lang, messages);
+                List<String> messagesForLang = section != null ? section.get(List.of(lang, "texts")) : null;
+                if (messagesForLang != null)
+                    messagesByLang.put(lang, messagesForLang);
             }
             
             // Загружаем общие параметры
-            int interval = config.getIntOrElse("messages." + typeLower + ".interval", getDefaultIntervalForType(typeLower));
-            boolean clickable = config.getOrElse("messages." + typeLower + ".clickable", getDefaultClickableForType(typeLower));
-            String clickType = config.getOrElse("messages." + typeLower + ".clickType", getDefaultClickTypeForType(typeLower));
+            Number interval = value(section, "interval");
+            Boolean clickable = value(section, "clickable");
+            String clickType = value(section, "clickType");
+            
+            MessageConfig messageConfig = new MessageConfig(
+                    messagesByLang, List.of(),
+                    interval != null ? interval.intValue() : getDefaultIntervalForType(typeLower),
+                    clickable != null ? clickable : getDefaultClickableForType(typeLower),
+                    clickType != null ? clickType : getDefaultClickTypeForType(typeLower));
             
             // Загружаем clickValues
-            List<String> clickValues;
-            if (clickable)
+            if (messageConfig.clickable)
             {
-                clickValues = config.getOrElse("messages." + typeLower + ".clickValues", getDefaultClickValuesForType(typeLower));
-            }
-            else
-            {
-                clickValues = List.of();
+                List<String> clickValues = value(section, "clickValues");
+                messageConfig.clickValues = clickValues != null ? clickValues : getDefaultClickValuesForType(typeLower);
             }
             
-            messageConfigs.put(type, new MessageConfig(messagesByLang, clickValues, interval, clickable, clickType));
+            // Необязательные параметры растянутой доставки
+            Number deliveryBatch = value(section, "deliveryBatch");
+            Number deliveryBudgetMicros = value(section, "deliveryBudgetMicros");
+            messageConfig.deliveryBatch = deliveryBatch != null ? deliveryBatch.intValue() : 0;
+            messageConfig.deliveryBudgetNanos = deliveryBudgetMicros != null ? deliveryBudgetMicros.longValue() * 1000L : 0L;
+            
+            // Выбор сообщений: веса по индексу и ротация без повторов
+            List<Number> weights = value(section, "weights");
+            if (weights != null)
+                messageConfig.weights = weights.stream().mapToDouble(Number::doubleValue).toArray();
+            String rotation = value(section, "rotation");
+            if (rotation != null)
+                messageConfig.rotation = rotation;
+            
+            // Сегмент аудитории
+            Number minPermission = value(section, "minPermission");
+            List<String> dimensions = value(section, "dimensions");
+            Boolean newPlayersOnly = value(section, "newPlayersOnly");
+            List<String> excludeTeams = value(section, "excludeTeams");
+            messageConfig.audience = new AudienceFilter(
+                    minPermission != null ? minPermission.intValue() : 0,
+                    dimensions != null ? dimensions : List.of(),
+                    newPlayersOnly != null && newPlayersOnly,
+                    excludeTeams != null ? excludeTeams : List.of());
+            
+            messageConfig.priority = TickThrottle.parsePriority(value(section, "priority"));
+            
+            String condition = value(section, "condition");
+            messageConfig.setCondition(type, condition != null ? condition : "");
+            
+            String schedule = value(section, "schedule");
+            messageConfig.setSchedule(type, schedule != null ? schedule : "");
+            
+            snapshot.messageConfigs.put(type, messageConfig);
         }
+
+        snapshot.broadcastMode = source.getOrElse("broadcastMode", "PER_PLAYER");
+        snapshot.prepareAheadTicks = source.getIntOrElse("prepareAheadTicks", 40);
+        snapshot.watchConfig = source.getOrElse("watchConfig", false);
+        snapshot.metricsDumpIntervalSeconds = source.getIntOrElse("metrics.dumpIntervalSeconds", 0);
+        snapshot.metricsDumpFormat = source.getOrElse("metrics.format", "PROMETHEUS");
+        snapshot.metricsDumpFile = source.getOrElse("metrics.file", "notify_metrics.prom");
+        snapshot.languageFilesLazy = source.getOrElse("languageFiles.lazy", true);
+        snapshot.languageEvictSeconds = source.getIntOrElse("languageFiles.evictAfterSeconds", 600);
+        snapshot.newPlayerMinutes = source.getIntOrElse("newPlayerMinutes", 60);
+        snapshot.throttleEnabled = source.getOrElse("throttle.enabled", true);
+        snapshot.throttleSoftMspt = source.<Number>getOrElse("throttle.softMspt", 40.0).doubleValue();
+        snapshot.throttleHardMspt = source.<Number>getOrElse("throttle.hardMspt", 50.0).doubleValue();
+        snapshot.throttleLagBatch = source.getIntOrElse("throttle.lagBatch", 100);
+        snapshot.auditEnabled = source.getOrElse("audit.enabled", false);
+        snapshot.auditFile = source.getOrElse("audit.file", "logs/notify-audit.log");
+        snapshot.auditPerPlayer = source.getOrElse("audit.perPlayer", false);
+        snapshot.auditMaxFileMegabytes = source.getIntOrElse("audit.maxFileMegabytes", 10);
+        snapshot.auditMaxFiles = source.getIntOrElse("audit.maxFiles", 5);
+        return snapshot;
+    }
+
+    // Значение ключа секции типа или null, если секции/ключа нет
+    private static <T> T value(UnmodifiableConfig section, String key)
+    {
+        return section != null ? section.get(List.of(key)) : null;
+    }
+
+    /**
+     * Применяет разобранный конфиг: только подставляет готовые значения, файлы не читаются.
+     * Вызывается на основном потоке сервера (или при загрузке мода)
+     */
+    static void apply(Snapshot snapshot)
+    {
+        if (config != snapshot.source)
+        {
+            if (config != null)
+                config.close();
+            config = snapshot.source;
+        }
+
+        messageTypes = snapshot.messageTypes;
+        supportedLanguages = snapshot.supportedLanguages;
+        // Правки из игры, еще не записанные в файл (ConfigEditor), поверх прочитанного
+        baseMessageConfigs = new HashMap<>(snapshot.messageConfigs);
+        ConfigEditor.overlay(baseMessageConfigs);
+        locales = new LocaleResolver(snapshot.supportedLanguages);
+
+        broadcastMode = snapshot.broadcastMode;
+        prepareAheadTicks = snapshot.prepareAheadTicks;
+        watchConfig = snapshot.watchConfig;
+        metricsDumpIntervalSeconds = snapshot.metricsDumpIntervalSeconds;
+        metricsDumpFormat = snapshot.metricsDumpFormat;
+        metricsDumpFile = snapshot.metricsDumpFile;
+        languageFilesLazy = snapshot.languageFilesLazy;
+        languageEvictSeconds = snapshot.languageEvictSeconds;
+        newPlayerMinutes = snapshot.newPlayerMinutes;
+        throttleEnabled = snapshot.throttleEnabled;
+        throttleSoftMspt = snapshot.throttleSoftMspt;
+        throttleHardMspt = snapshot.throttleHardMspt;
+        throttleLagBatch = snapshot.throttleLagBatch;
+        auditEnabled = snapshot.auditEnabled;
+        auditFile = snapshot.auditFile;
+        auditPerPlayer = snapshot.auditPerPlayer;
+        auditMaxFileMegabytes = snapshot.auditMaxFileMegabytes;
+        auditMaxFiles = snapshot.auditMaxFiles;
+
+        LanguageCorpus.install(snapshot.corpus);
+        refreshLanguages();
+    }
+
+    /**
+     * Заменяет сообщения типа на языке в основном конфиге (без записи в файл - ее делает ConfigEditor). Только основной поток
+     */
+    static void setMessages(String type, String lang, List<String> messages)
+    {
+        MessageConfig base = baseMessageConfigs.get(type);
+        if (base == null)
+            return;
+
+        Map<String, List<String>> messagesByLang = new HashMap<>(base.messagesByLang);
+        messagesByLang.put(lang, messages);
+        Map<String, MessageConfig> updated = new HashMap<>(baseMessageConfigs);
+        updated.put(type, base.withMessages(messagesByLang));
+        baseMessageConfigs = updated;
+        refreshLanguages();
+    }
+
+    /**
+     * Пересобирает messageConfigs после загрузки или выгрузки файла языка. Только основной поток
+     */
+    static void refreshLanguages()
+    {
+        Map<String, MessageConfig> merged = new HashMap<>();
+        for (Map.Entry<String, MessageConfig> entry : baseMessageConfigs.entrySet())
+        {
+            merged.put(entry.getKey(), entry.getValue().withMessages(mergeLanguages(entry.getKey().toLowerCase(), entry.getValue())));
+        }
+        messageConfigs = merged;
+    }
+
+    // Тексты языка: файл языка -> основной конфиг -> значения по умолчанию.
+    // Язык с файлом, который еще не загружен, пропускается - MessageType возьмет его цепочку fallback
+    private static Map<String, List<String>> mergeLanguages(String typeLower, MessageConfig base)
+    {
+        Map<String, List<String>> messagesByLang = new HashMap<>();
+        for (String lang : supportedLanguages)
+        {
+            List<String> messages = LanguageCorpus.getMessages(lang, typeLower);
+            if (messages == null)
+                messages = base.messagesByLang.get(lang);
+            if (messages == null && !LanguageCorpus.hasFile(lang))
+                messages = getDefaultMessagesForType(typeLower, lang);
+            if (messages != null)
+                messagesByLang.put(lang, messages);
+        }
+        return messagesByLang;
+    }
+
+    /**
+     * Открывает файл конфига с настройками, которые использует мод
+     */
+    static CommentedFileConfig open(Path configPath)
+    {
+        return CommentedFileConfig.builder(configPath)
+                .sync()
+                .writingMode(WritingMode.REPLACE)
+                .build();
+    }
+
+    public static Path getConfigPath()
+    {
+        return FMLPaths.CONFIGDIR.get().resolve(CONFIG_FILE_NAME);
+    }
+
+    /**
+     * Путь к журналу доставки (относительные пути - от папки сервера)
+     */
+    public static Path getAuditPath()
+    {
+        return FMLPaths.GAMEDIR.get().resolve(auditFile);
+    }
+
+    /**
+     * Файл сохраненного расписания типов (ScheduleState)
+     */
+    public static Path getScheduleStatePath()
+    {
+        return FMLPaths.CONFIGDIR.get().resolve(SCHEDULE_FILE_NAME);
+    }
+
+    /**
+     * Папка файлов отключенных игроками типов (MuteStore)
+     */
+    public static Path getMutesDirectory()
+    {
+        return FMLPaths.CONFIGDIR.get().resolve(MUTES_DIRECTORY);
+    }
+
+    /**
+     * Путь к файлу выгрузки метрик (относительные пути - от папки сервера)
+     */
+    public static Path getMetricsDumpPath()
+    {
+        return FMLPaths.GAMEDIR.get().resolve(metricsDumpFile);
+    }
+
+    /**
+     * Возвращает id языка (индекс в supportedLanguages) или -1, если язык не поддерживается
+     */
+    public static int getLanguageId(String lang)
+    {
+        return locales.getId(lang);
     }
 
     // Дефолтные значения
@@ -0,0 +1,206 @@
+package com.example.examplemod;
+
+import com.electronwill.nightconfig.core.file.CommentedFileConfig;
+import com.electronwill.nightconfig.core.io.WritingMode;
+import com.electronwill.nightconfig.toml.TomlFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Изменение текстов сообщений из игры (/notify add|edit|remove). Таблицы типа пересобираются сразу,
+ * а файл конфига переписывается в фоне после паузы QUIET_MILLIS без новых изменений: сколько бы
+ * правок ни пришло подряд, это одна запись (временный файл + переименование). Пока запись не сделана,
+ * правки накладываются поверх перечитанного файла, поэтому /notify reload и watchConfig их не теряют
+ */
+public final class ConfigEditor
+{
+    // Пауза без изменений перед записью и предельная задержка при непрерывных правках
+    private static final long QUIET_MILLIS = 2000L;
+    private static final long MAX_DELAY_MILLIS = 30_000L;
+
+    // Незаписанные тексты: тип -> язык -> сообщения. Доступ под монитором ConfigEditor
+    private static final Map<String, Map<String, List<String>>> pending = new LinkedHashMap<>();
+    private static ScheduledThreadPoolExecutor executor;
+    private static ScheduledFuture<?> flushTask;
+    private static long firstPendingMillis;
+
+    private ConfigEditor()
+    {
+    }
+
+    /**
+     * Сообщения типа на языке, которые видят игроки (копия для изменения)
+     */
+    public static List<String> getMessages(String type, String lang)
+    {
+        Config.MessageConfig messageConfig = Config.messageConfigs.get(type);
+        List<String> messages = messageConfig != null ? messageConfig.messagesByLang.get(lang) : null;
+        return messages != null ? new ArrayList<>(messages) : new ArrayList<>();
+    }
+
+    /**
+     * Заменяет сообщения типа на языке: применяет к таблицам типа и ставит запись в очередь. Только основной поток
+     */
+    public static void setMessages(String type, String lang, List<String> messages)
+    {
+        List<String> copy = List.copyOf(messages);
+        synchronized (ConfigEditor.class)
+        {
+            if (pending.isEmpty())
+                firstPendingMillis = System.currentTimeMillis();
+            pending.computeIfAbsent(type, key -> new LinkedHashMap<>()).put(lang, copy);
+            scheduleFlush();
+        }
+
+        Config.setMessages(type, lang, copy);
+        MessageScheduler.refreshMessages();
+    }
+
+    /**
+     * Накладывает незаписанные правки на только что разобранный конфиг (тип -> настройки типа)
+     */
+    static synchronized void overlay(Map<String, Config.MessageConfig> messageConfigs)
+    {
+        for (Map.Entry<String, Map<String, List<String>>> entry : pending.entrySet())
+        {
+            Config.MessageConfig messageConfig = messageConfigs.get(entry.getKey());
+            if (messageConfig == null)
+                continue;
+
+            Map<String, List<String>> messages = new HashMap<>(messageConfig.messagesByLang);
+            messages.putAll(entry.getValue());
+            messageConfigs.put(entry.getKey(), messageConfig.withMessages(messages));
+        }
+    }
+
+    /**
+     * Остановка сервера: дописывает правки на текущем потоке
+     */
+    public static void shutdown()
+    {
+        ScheduledThreadPoolExecutor stopped;
+        synchronized (ConfigEditor.class)
+        {
+            stopped = executor;
+            executor = null;
+            flushTask = null;
+        }
+        if (stopped != null)
+        {
+            // Отложенная запись отменяется, начатая - дописывается до финальной (тот же .tmp файл)
+            stopped.shutdown();
+            try
+            {
+                stopped.awaitTermination(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    // Каждая правка откладывает запись на QUIET_MILLIS, но не дальше MAX_DELAY_MILLIS от первой незаписанной
+    private static void scheduleFlush()
+    {
+        if (flushTask != null)
+        {
+            if (System.currentTimeMillis() - firstPendingMillis >= MAX_DELAY_MILLIS)
+                return;
+            flushTask.cancel(false);
+        }
+
+        if (executor == null)
+        {
+            executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "Notify-ConfigWriter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+        flushTask = executor.schedule(ConfigEditor::flush, QUIET_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void flush()
+    {
+        Map<String, Map<String, List<String>>> edits = new LinkedHashMap<>();
+        synchronized (ConfigEditor.class)
+        {
+            // Правка во время записи запланирует новую запись сама
+            flushTask = null;
+            for (Map.Entry<String, Map<String, List<String>>> entry : pending.entrySet())
+            {
+                edits.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+            }
+        }
+        if (edits.isEmpty())
+            return;
+
+        try
+        {
+            write(Config.getConfigPath(), edits);
+        }
+        catch (Exception e)
+        {
+            // Правки остаются в очереди и попадут в следующую запись
+            ExampleMod.LOGGER.error("[Notify] Failed to save edited messages to config: {}", e.getMessage());
+            return;
+        }
+
+        // Снимаем записанное; правки, пришедшие во время записи, остаются и получают свою запись
+        synchronized (ConfigEditor.class)
+        {
+            for (Map.Entry<String, Map<String, List<String>>> entry : edits.entrySet())
+            {
+                Map<String, List<String>> languages = pending.get(entry.getKey());
+                if (languages == null)
+                    continue;
+                entry.getValue().forEach((lang, messages) -> languages.remove(lang, messages));
+                if (languages.isEmpty())
+                    pending.remove(entry.getKey());
+            }
+            if (!pending.isEmpty() && flushTask == null && executor != null)
+            {
+                firstPendingMillis = System.currentTimeMillis();
+                scheduleFlush();
+            }
+        }
+        ExampleMod.LOGGER.info("[Notify] Saved edited messages of {} type(s) to config", edits.size());
+    }
+
+    // Текущий файл + правки -> временный файл рядом -> атомарная замена
+    private static void write(Path configPath, Map<String, Map<String, List<String>>> edits) throws IOException
+    {
+        CommentedFileConfig file = Config.open(configPath);
+        try
+        {
+            file.load();
+            for (Map.Entry<String, Map<String, List<String>>> entry : edits.entrySet())
+            {
+                String typeLower = entry.getKey().toLowerCase();
+                entry.getValue().forEach((lang, messages) -> file.set(List.of("messages", typeLower, lang, "texts"), messages));
+            }
+
+            Path temp = configPath.resolveSibling(configPath.getFileName() + ".tmp");
+            TomlFormat.instance().createWriter().write(file, temp, WritingMode.REPLACE);
+            Files.move(temp, configPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.examplemod;
+
+import com.electronwill.nightconfig.core.file.CommentedFileConfig;
+import net.minecraft.server.MinecraftServer;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Слежение за файлом конфига (включается watchConfig = true) и фоновая перезагрузка (она же для /notify reload).
+ * Файл конфига и файлы языков разбираются в фоновом потоке, а на основной поток передается только применение
+ * готового Snapshot с инкрементальным обновлением расписания
+ */
+public final class ConfigWatcher
+{
+    // Пауза после последнего события - редакторы часто пишут файл в несколько приемов
+    private static final long DEBOUNCE_MS = 500L;
+
+    private static Thread thread;
+    private static WatchService watchService;
+    // Разбор конфига: один поток, перезагрузки выполняются по очереди
+    private static ExecutorService loader;
+
+    private ConfigWatcher()
+    {
+    }
+
+    /**
+     * Запускает или останавливает слежение в соответствии с Config.watchConfig
+     */
+    public static synchronized void configure(MinecraftServer server)
+    {
+        if (Config.watchConfig)
+        {
+            if (thread == null)
+                start(server);
+        }
+        else
+        {
+            stop();
+        }
+    }
+
+    private static void start(MinecraftServer server)
+    {
+        Path configPath = Config.getConfigPath();
+        try
+        {
+            watchService = FileSystems.getDefault().newWatchService();
+            configPath.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        }
+        catch (IOException e)
+        {
+            ExampleMod.LOGGER.error("[Notify] Failed to watch config {}: {}", configPath, e.getMessage());
+            return;
+        }
+
+        WatchService service = watchService;
+        thread = new Thread(() -> watch(service, configPath, server), "Notify-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        ExampleMod.LOGGER.info("[Notify] Watching {} for changes", configPath);
+    }
+
+    public static synchronized void stop()
+    {
+        if (thread == null)
+            return;
+
+        try
+        {
+            watchService.close();
+        }
+        catch (IOException ignored)
+        {
+        }
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+
+    private static void watch(WatchService service, Path configPath, MinecraftServer server)
+    {
+        Path fileName = configPath.getFileName();
+        try
+        {
+            while (!Thread.currentThread().isInterrupted())
+            {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents())
+                {
+                    if (fileName.equals(event.context()))
+                        changed = true;
+                }
+                key.reset();
+
+                if (!changed)
+                    continue;
+
+                // Ждем, пока запись файла закончится, и сбрасываем накопившиеся события
+                Thread.sleep(DEBOUNCE_MS);
+                WatchKey pending;
+                while ((pending = service.poll()) != null)
+                {
+                    pending.pollEvents();
+                    pending.reset();
+                }
+
+                reload(server, error -> { });
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            // Слежение остановлено
+        }
+    }
+
+    /**
+     * Перечитывает конфиг: разбор в фоновом потоке, применение - на основном. onDone вызывается на основном потоке
+     * после применения (null) или с ошибкой разбора (конфиг остается прежним)
+     */
+    public static void reload(MinecraftServer server, Consumer<Exception> onDone)
+    {
+        Path configPath = Config.getConfigPath();
+        long startNanos = System.nanoTime();
+        loader().execute(() -> {
+            CommentedFileConfig fresh = Config.open(configPath);
+            Config.Snapshot snapshot;
+            try
+            {
+                snapshot = Config.loadSnapshot(fresh);
+            }
+            catch (Exception e)
+            {
+                fresh.close();
+                ExampleMod.LOGGER.error("[Notify] Config change ignored, failed to parse {}: {}", configPath, e.getMessage());
+                server.execute(() -> onDone.accept(e));
+                return;
+            }
+
+            server.execute(() -> {
+                Config.apply(snapshot);
+                MessageScheduler.applyConfig();
+                configure(server);
+                NotifyMetrics.RELOAD_NANOS.record(System.nanoTime() - startNanos);
+                ExampleMod.LOGGER.info("[Notify] Config change applied! Message types: {}", Config.messageTypes.size());
+                onDone.accept(null);
+            });
+        });
+    }
+
+    /**
+     * Остановка сервера: поток разбора завершается, незапущенные перезагрузки отбрасываются
+     */
+    public static synchronized void shutdown()
+    {
+        stop();
+        if (loader != null)
+        {
+            loader.shutdownNow();
+            loader = null;
+        }
+    }
+
+    private static synchronized ExecutorService loader()
+    {
+        if (loader == null)
+        {
+            loader = Executors.newSingleThreadExecutor(runnable -> {
+                Thread loaderThread = new Thread(runnable, "Notify-ConfigLoader");
+                loaderThread.setDaemon(true);
+                return loaderThread;
+            });
+        }
+        return loader;
+    }
+}
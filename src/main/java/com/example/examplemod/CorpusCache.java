@@ -0,0 +1,351 @@
+package com.example.examplemod;
+
+import com.electronwill.nightconfig.core.file.CommentedFileConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Скомпилированный кэш разобранного конфига (notify_mod-common.bin рядом с TOML).
+ * Большой TOML с тысячами сообщений разбирается только после изменения: кэш привязан к размеру,
+ * времени изменения и SHA-256 файла и при совпадении читается через memory-mapped буфер без разбора TOML.
+ * Любая ошибка чтения или записи кэша не мешает загрузке - конфиг просто разбирается заново
+ */
+public final class CorpusCache
+{
+    private static final int MAGIC = 0x4E544659; // "NTFY"
+    // Увеличивать при изменении формата или набора полей Config.Snapshot / MessageConfig
+    private static final int VERSION = 7;
+    private static final String CACHE_SUFFIX = ".bin";
+
+    /**
+     * Отпечаток TOML-файла: размер и время изменения, хэш содержимого считается только при необходимости
+     */
+    public static final class Key
+    {
+        private final Path file;
+        private final long size;
+        private final long modifiedMillis;
+        private byte[] hash;
+
+        private Key(Path file, long size, long modifiedMillis)
+        {
+            this.file = file;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+        }
+
+        // SHA-256 содержимого или null, если файл не прочитать
+        private byte[] hash()
+        {
+            if (hash == null)
+            {
+                try
+                {
+                    hash = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file));
+                }
+                catch (IOException | NoSuchAlgorithmException e)
+                {
+                    return null;
+                }
+            }
+            return hash;
+        }
+    }
+
+    private CorpusCache()
+    {
+    }
+
+    /**
+     * Снимает отпечаток TOML-файла или возвращает null, если файла нет
+     */
+    public static Key key(Path configPath)
+    {
+        try
+        {
+            return new Key(configPath, Files.size(configPath), Files.getLastModifiedTime(configPath).toMillis());
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Читает Snapshot из кэша, если он соответствует TOML-файлу, иначе null.
+     * source - незагруженный CommentedFileConfig, который станет Config.config после apply
+     */
+    public static Config.Snapshot read(Path configPath, Key key, CommentedFileConfig source)
+    {
+        if (key == null)
+            return null;
+
+        Path cachePath = getCachePath(configPath);
+        try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return null;
+
+            long size = buffer.getLong();
+            long modifiedMillis = buffer.getLong();
+            byte[] hash = new byte[32];
+            buffer.get(hash);
+
+            // Файл трогали, но не меняли (копирование, git checkout) - сверяем содержимое
+            if (size != key.size || modifiedMillis != key.modifiedMillis)
+            {
+                if (size != key.size || !Arrays.equals(hash, key.hash()))
+                    return null;
+            }
+
+            Config.Snapshot snapshot = readSnapshot(buffer);
+            snapshot.source = source;
+            ExampleMod.LOGGER.info("[Notify] Config loaded from compiled cache {}", cachePath.getFileName());
+            return snapshot;
+        }
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+        catch (IOException | BufferUnderflowException | IllegalArgumentException e)
+        {
+            ExampleMod.LOGGER.warn("[Notify] Ignoring unreadable config cache {}: {}", cachePath, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Записывает кэш для разобранного конфига. Файл заменяется атомарно
+     */
+    public static void write(Path configPath, Key key, Config.Snapshot snapshot)
+    {
+        if (key == null || key.hash() == null)
+            return;
+
+        Path cachePath = getCachePath(configPath);
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(key.size);
+            out.writeLong(key.modifiedMillis);
+            out.write(key.hash());
+            writeSnapshot(out, snapshot);
+            out.flush();
+
+            Path temp = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            ExampleMod.LOGGER.warn("[Notify] Failed to write config cache {}: {}", cachePath, e.getMessage());
+        }
+    }
+
+    public static Path getCachePath(Path configPath)
+    {
+        String fileName = configPath.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        String baseName = extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+        return configPath.resolveSibling(baseName + CACHE_SUFFIX);
+    }
+
+    // Формат: глобальные параметры, списки типов и языков, затем по записи на каждый тип в порядке messageTypes
+
+    private static void writeSnapshot(DataOutputStream out, Config.Snapshot snapshot) throws IOException
+    {
+        writeString(out, snapshot.broadcastMode);
+        out.writeInt(snapshot.prepareAheadTicks);
+        out.writeBoolean(snapshot.watchConfig);
+        out.writeInt(snapshot.metricsDumpIntervalSeconds);
+        writeString(out, snapshot.metricsDumpFormat);
+        writeString(out, snapshot.metricsDumpFile);
+        out.writeBoolean(snapshot.languageFilesLazy);
+        out.writeInt(snapshot.languageEvictSeconds);
+        out.writeInt(snapshot.newPlayerMinutes);
+        out.writeBoolean(snapshot.throttleEnabled);
+        out.writeDouble(snapshot.throttleSoftMspt);
+        out.writeDouble(snapshot.throttleHardMspt);
+        out.writeInt(snapshot.throttleLagBatch);
+        out.writeBoolean(snapshot.auditEnabled);
+        writeString(out, snapshot.auditFile);
+        out.writeBoolean(snapshot.auditPerPlayer);
+        out.writeInt(snapshot.auditMaxFileMegabytes);
+        out.writeInt(snapshot.auditMaxFiles);
+        writeList(out, snapshot.messageTypes);
+        writeList(out, snapshot.supportedLanguages);
+
+        for (String type : snapshot.messageTypes)
+        {
+            Config.MessageConfig config = snapshot.messageConfigs.get(type);
+            out.writeBoolean(config != null);
+            if (config == null)
+                continue;
+
+            out.writeInt(config.intervalSeconds);
+            out.writeBoolean(config.clickable);
+            writeString(out, config.clickType);
+            writeList(out, config.clickValues);
+            out.writeInt(config.deliveryBatch);
+            out.writeLong(config.deliveryBudgetNanos);
+            writeString(out, config.conditionExpression);
+            writeString(out, config.rotation);
+            out.writeInt(config.weights.length);
+            for (double weight : config.weights)
+            {
+                out.writeDouble(weight);
+            }
+            out.writeInt(config.audience.getMinPermission());
+            writeList(out, config.audience.getDimensions());
+            out.writeBoolean(config.audience.isNewPlayersOnly());
+            writeList(out, config.audience.getExcludeTeams());
+            out.writeInt(config.priority);
+            writeString(out, config.scheduleExpression);
+
+            out.writeInt(config.messagesByLang.size());
+            for (Map.Entry<String, List<String>> entry : config.messagesByLang.entrySet())
+            {
+                writeString(out, entry.getKey());
+                writeList(out, entry.getValue());
+            }
+        }
+    }
+
+    private static Config.Snapshot readSnapshot(MappedByteBuffer buffer)
+    {
+        Config.Snapshot snapshot = new Config.Snapshot();
+        snapshot.broadcastMode = readString(buffer);
+        snapshot.prepareAheadTicks = buffer.getInt();
+        snapshot.watchConfig = buffer.get() != 0;
+        snapshot.metricsDumpIntervalSeconds = buffer.getInt();
+        snapshot.metricsDumpFormat = readString(buffer);
+        snapshot.metricsDumpFile = readString(buffer);
+        snapshot.languageFilesLazy = buffer.get() != 0;
+        snapshot.languageEvictSeconds = buffer.getInt();
+        snapshot.newPlayerMinutes = buffer.getInt();
+        snapshot.throttleEnabled = buffer.get() != 0;
+        snapshot.throttleSoftMspt = buffer.getDouble();
+        snapshot.throttleHardMspt = buffer.getDouble();
+        snapshot.throttleLagBatch = buffer.getInt();
+        snapshot.auditEnabled = buffer.get() != 0;
+        snapshot.auditFile = readString(buffer);
+        snapshot.auditPerPlayer = buffer.get() != 0;
+        snapshot.auditMaxFileMegabytes = buffer.getInt();
+        snapshot.auditMaxFiles = buffer.getInt();
+        snapshot.messageTypes = readList(buffer);
+        snapshot.supportedLanguages = readList(buffer);
+        snapshot.messageConfigs = new HashMap<>();
+
+        for (String type : snapshot.messageTypes)
+        {
+            if (buffer.get() == 0)
+                continue;
+
+            int intervalSeconds = buffer.getInt();
+            boolean clickable = buffer.get() != 0;
+            String clickType = readString(buffer);
+            List<String> clickValues = readList(buffer);
+            int deliveryBatch = buffer.getInt();
+            long deliveryBudgetNanos = buffer.getLong();
+            String condition = readString(buffer);
+            String rotation = readString(buffer);
+            int weightCount = buffer.getInt();
+            if (weightCount < 0 || weightCount > buffer.remaining() / 8)
+                throw new IllegalArgumentException("corrupt weight count " + weightCount);
+            double[] weights = new double[weightCount];
+            for (int i = 0; i < weightCount; i++)
+            {
+                weights[i] = buffer.getDouble();
+            }
+            int minPermission = buffer.getInt();
+            List<String> dimensions = readList(buffer);
+            boolean newPlayersOnly = buffer.get() != 0;
+            List<String> excludeTeams = readList(buffer);
+            int priority = buffer.getInt();
+            String schedule = readString(buffer);
+
+            int languageCount = buffer.getInt();
+            Map<String, List<String>> messagesByLang = new HashMap<>();
+            for (int i = 0; i < languageCount; i++)
+            {
+                String lang = readString(buffer);
+                messagesByLang.put(lang, readList(buffer));
+            }
+
+            Config.MessageConfig config = new Config.MessageConfig(messagesByLang, clickValues, intervalSeconds, clickable, clickType);
+            config.deliveryBatch = deliveryBatch;
+            config.deliveryBudgetNanos = deliveryBudgetNanos;
+            config.setCondition(type, condition);
+            config.rotation = rotation;
+            config.weights = weights;
+            config.audience = new AudienceFilter(minPermission, dimensions, newPlayersOnly, excludeTeams);
+            config.priority = priority;
+            config.setSchedule(type, schedule);
+            snapshot.messageConfigs.put(type, config);
+        }
+        return snapshot;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeList(DataOutputStream out, List<String> values) throws IOException
+    {
+        out.writeInt(values.size());
+        for (String value : values)
+        {
+            writeString(out, value);
+        }
+    }
+
+    private static String readString(MappedByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining())
+            throw new IllegalArgumentException("corrupt string length " + length);
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readList(MappedByteBuffer buffer)
+    {
+        int size = buffer.getInt();
+        if (size < 0 || size > buffer.remaining() / 4)
+            throw new IllegalArgumentException("corrupt list size " + size);
+
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.examplemod;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Расписание по часам (параметр schedule в [messages.<type>]) в формате cron из пяти полей:
+ * "минута час день-месяца месяц день-недели", например "0 18 * * *" (каждый день в 18:00),
+ * "0 19-23 * * FRI" (по пятницам каждый час с 19 до 23) или "55,58,59 * * * *".
+ * Поля: *, числа, диапазоны a-b, списки через запятую и шаг /n после * или диапазона; месяцы и дни недели
+ * можно писать именами (JAN, MON), воскресенье - 0 или 7. Также @hourly, @daily, @weekly, @monthly.
+ * Выражение компилируется в битовые маски, поэтому следующий момент находится поиском бита,
+ * а не перебором минут. Время - часовой пояс сервера
+ */
+public final class CronSchedule
+{
+    private static final Map<String, String> ALIASES = Map.of(
+            "@hourly", "0 * * * *",
+            "@daily", "0 0 * * *",
+            "@midnight", "0 0 * * *",
+            "@weekly", "0 0 * * 0",
+            "@monthly", "0 0 1 * *");
+    private static final String[] MONTH_NAMES = { "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC" };
+    private static final String[] DAY_NAMES = { "SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT" };
+    // Выражение без подходящей даты (например, 30 февраля) ищется не дальше этого числа лет
+    private static final int SEARCH_YEARS = 8;
+
+    private final String expression;
+    private final long minutes;     // Биты 0-59
+    private final long hours;       // Биты 0-23
+    private final long daysOfMonth; // Биты 1-31
+    private final long months;      // Биты 1-12
+    private final long daysOfWeek;  // Биты 0-6, 0 - воскресенье
+    // Если заданы и день месяца, и день недели, подходит любой из них (как в cron)
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+    private final ZoneId zone;
+
+    private CronSchedule(String expression, String[] fields, ZoneId zone)
+    {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59, null);
+        this.hours = parseField(fields[1], 0, 23, null);
+        this.daysOfMonth = parseField(fields[2], 1, 31, null);
+        this.months = parseField(fields[3], 1, 12, MONTH_NAMES);
+        long weekdays = parseField(fields[4], 0, 7, DAY_NAMES);
+        // 7 - тоже воскресенье
+        this.daysOfWeek = (weekdays | (weekdays >>> 7)) & 0x7FL;
+        // Как в Vixie cron: поле, начинающееся с * (включая */n), не ограничивает день
+        this.anyDayOfMonth = fields[2].startsWith("*");
+        this.anyDayOfWeek = fields[4].startsWith("*");
+        this.zone = zone;
+    }
+
+    /**
+     * Компилирует выражение (null - пустое выражение, расписания нет).
+     * При ошибке синтаксиса бросает IllegalArgumentException с описанием
+     */
+    public static CronSchedule compile(String expression)
+    {
+        return compile(expression, ZoneId.systemDefault());
+    }
+
+    static CronSchedule compile(String expression, ZoneId zone)
+    {
+        if (expression == null || expression.isBlank())
+            return null;
+
+        String trimmed = expression.trim();
+        String fields = ALIASES.getOrDefault(trimmed.toLowerCase(Locale.ROOT), trimmed);
+        String[] parts = fields.split("\\s+");
+        if (parts.length != 5)
+            throw new IllegalArgumentException("expected 5 fields (minute hour day month weekday), got " + parts.length);
+        return new CronSchedule(trimmed, parts, zone);
+    }
+
+    public String getExpression()
+    {
+        return expression;
+    }
+
+    /**
+     * Начало первой подходящей минуты строго после afterMillis или Long.MAX_VALUE, если такой нет
+     */
+    public long next(long afterMillis)
+    {
+        ZonedDateTime time = Instant.ofEpochMilli(afterMillis).atZone(zone).truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        int lastYear = time.getYear() + SEARCH_YEARS;
+        while (time.getYear() <= lastYear)
+        {
+            if (!has(months, time.getMonthValue()))
+            {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+                continue;
+            }
+            if (!matchesDay(time))
+            {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+
+            int hour = nextBit(hours, time.getHour());
+            if (hour < 0)
+            {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            if (hour != time.getHour())
+            {
+                time = time.withHour(hour).withMinute(0);
+                continue;
+            }
+
+            int minute = nextBit(minutes, time.getMinute());
+            if (minute < 0)
+            {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            return time.withMinute(minute).toInstant().toEpochMilli();
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private boolean matchesDay(ZonedDateTime time)
+    {
+        boolean dayOfMonth = has(daysOfMonth, time.getDayOfMonth());
+        boolean dayOfWeek = has(daysOfWeek, time.getDayOfWeek().getValue() % 7);
+        if (anyDayOfMonth || anyDayOfWeek)
+            return dayOfMonth && dayOfWeek;
+        return dayOfMonth || dayOfWeek;
+    }
+
+    private static boolean has(long bits, int value)
+    {
+        return (bits & (1L << value)) != 0;
+    }
+
+    // Наименьший установленный бит не меньше from или -1
+    private static int nextBit(long bits, int from)
+    {
+        long remaining = bits & (-1L << from);
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+
+    // Поле cron в битовую маску
+    private static long parseField(String field, int min, int max, String[] names)
+    {
+        long bits = 0;
+        for (String part : field.split(","))
+        {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0)
+            {
+                step = parseNumber(part.substring(slash + 1), 1, max - min + 1, null, 0);
+                part = part.substring(0, slash);
+            }
+
+            int from;
+            int to;
+            if (part.equals("*"))
+            {
+                from = min;
+                to = max;
+            }
+            else
+            {
+                int dash = part.indexOf('-', 1);
+                from = parseNumber(dash >= 0 ? part.substring(0, dash) : part, min, max, names, min);
+                to = dash >= 0 ? parseNumber(part.substring(dash + 1), min, max, names, min) : (slash >= 0 ? max : from);
+                if (to < from)
+                    throw new IllegalArgumentException("empty range '" + part + "'");
+            }
+
+            for (int value = from; value <= to; value += step)
+            {
+                bits |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseNumber(String text, int min, int max, String[] names, int firstName)
+    {
+        if (names != null)
+        {
+            for (int i = 0; i < names.length; i++)
+            {
+                if (names[i].equalsIgnoreCase(text))
+                    return firstName + i;
+            }
+        }
+
+        int value;
+        try
+        {
+            value = Integer.parseInt(text);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("invalid value '" + text + "'");
+        }
+        if (value < min || value > max)
+            throw new IllegalArgumentException("value " + value + " is out of range " + min + "-" + max);
+        return value;
+    }
+}
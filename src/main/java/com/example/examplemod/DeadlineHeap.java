@@ -0,0 +1,172 @@
+package com.example.examplemod;
+
+import java.util.Arrays;
+
+/**
+ * Минимальная двоичная куча по дедлайну (тику следующей отправки).
+ * Элементы с одинаковым дедлайном извлекаются в порядке добавления, чтобы сохранить порядок типов из конфига
+ */
+public final class DeadlineHeap<T>
+{
+    private Object[] items = new Object[16];
+    private long[] deadlines = new long[16];
+    private long[] sequences = new long[16];
+    private int size;
+    private long nextSequence;
+
+    public void add(T item, long deadline)
+    {
+        if (size == items.length)
+        {
+            int capacity = size * 2;
+            items = Arrays.copyOf(items, capacity);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+        }
+
+        int index = size++;
+        items[index] = item;
+        deadlines[index] = deadline;
+        sequences[index] = nextSequence++;
+        siftUp(index);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Ближайший дедлайн или Long.MAX_VALUE, если куча пуста
+     */
+    public long peekDeadline()
+    {
+        return size == 0 ? Long.MAX_VALUE : deadlines[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T peek()
+    {
+        return size == 0 ? null : (T) items[0];
+    }
+
+    /**
+     * Извлекает элемент с ближайшим дедлайном
+     */
+    public T poll()
+    {
+        if (size == 0)
+            return null;
+
+        T top = peek();
+        removeAt(0);
+        return top;
+    }
+
+    /**
+     * Удаляет элемент (сравнение по ссылке). Линейный поиск - используется только при перезагрузке
+     */
+    public boolean remove(T item)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (items[i] == item)
+            {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Элемент по индексу внутреннего массива (порядок не отсортирован) - для просмотра расписания
+    @SuppressWarnings("unchecked")
+    public T get(int index)
+    {
+        return (T) items[index];
+    }
+
+    public long deadlineAt(int index)
+    {
+        return deadlines[index];
+    }
+
+    public void clear()
+    {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    private void removeAt(int index)
+    {
+        int last = --size;
+        if (index != last)
+        {
+            move(last, index);
+            // Перенесенный элемент мог оказаться как больше, так и меньше соседей
+            if (siftDown(index) == index)
+            {
+                siftUp(index);
+            }
+        }
+        items[last] = null;
+    }
+
+    private void siftUp(int index)
+    {
+        while (index > 0)
+        {
+            int parent = (index - 1) >>> 1;
+            if (!less(index, parent))
+                break;
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private int siftDown(int index)
+    {
+        while (true)
+        {
+            int left = index * 2 + 1;
+            if (left >= size)
+                return index;
+            int right = left + 1;
+            int smallest = (right < size && less(right, left)) ? right : left;
+            if (!less(smallest, index))
+                return index;
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private boolean less(int a, int b)
+    {
+        if (deadlines[a] != deadlines[b])
+            return deadlines[a] < deadlines[b];
+        return sequences[a] < sequences[b];
+    }
+
+    private void move(int from, int to)
+    {
+        items[to] = items[from];
+        deadlines[to] = deadlines[from];
+        sequences[to] = sequences[from];
+    }
+
+    private void swap(int a, int b)
+    {
+        Object item = items[a];
+        long deadline = deadlines[a];
+        long sequence = sequences[a];
+        move(b, a);
+        items[b] = item;
+        deadlines[b] = deadline;
+        sequences[b] = sequence;
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.examplemod;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Журнал доставки (секция [audit]): время, тип, индекс сообщения, язык и число получателей
+ * (по желанию - UUID каждого получателя). Основной поток только заполняет слот заранее выделенного
+ * кольцевого буфера; фоновый поток раз в секунду дописывает накопленное в файл одной последовательной
+ * записью и ротирует файл по размеру. Если буфер переполнен, запись отбрасывается, а не ждет диск.
+ * При смене настроек старый поток дописывает свой буфер сам, а новый получает новый буфер -
+ * основной поток не ждет ни один из них
+ */
+public final class DeliveryAudit
+{
+    private static final int CAPACITY = 4096; // Степень двойки
+    private static final int MASK = CAPACITY - 1;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Кольцевой буфер записей: один писатель (основной поток), один читатель (поток журнала)
+    private static final class Ring
+    {
+        final long[] timestamps = new long[CAPACITY];
+        final String[] types = new String[CAPACITY];
+        final int[] messageIndexes = new int[CAPACITY];
+        final String[] languages = new String[CAPACITY];
+        final int[] recipients = new int[CAPACITY];
+        final UUID[][] players = new UUID[CAPACITY][];
+        // Номер следующей записи (пишет основной поток) и следующей непрочитанной (пишет поток журнала)
+        final AtomicLong head = new AtomicLong();
+        final AtomicLong tail = new AtomicLong();
+    }
+
+    // Поток журнала со своим буфером и настройками
+    private static final class Writer
+    {
+        final Ring ring = new Ring();
+        final boolean perPlayer;
+        final Path file;
+        final long maxBytes;
+        final int maxFiles;
+        // Прежний поток журнала: новый начинает писать в файл только после того, как тот допишет свой буфер
+        final Thread previous;
+        final Thread thread;
+        volatile boolean running = true;
+        volatile boolean failed;
+
+        Writer(boolean perPlayer, Path file, long maxBytes, int maxFiles, Thread previous)
+        {
+            this.perPlayer = perPlayer;
+            this.file = file;
+            this.maxBytes = maxBytes;
+            this.maxFiles = Math.max(1, maxFiles);
+            this.previous = previous;
+            this.thread = new Thread(() -> run(this), "Notify-AuditWriter");
+            this.thread.setDaemon(true);
+        }
+
+        boolean sameSettings(boolean perPlayer, Path file, long maxBytes, int maxFiles)
+        {
+            return this.perPlayer == perPlayer && this.file.equals(file)
+                    && this.maxBytes == maxBytes && this.maxFiles == Math.max(1, maxFiles);
+        }
+
+        // Завершение: поток дописывает оставшиеся записи и выходит
+        void finish()
+        {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private static volatile Writer current;
+
+    private DeliveryAudit()
+    {
+    }
+
+    public static boolean isEnabled()
+    {
+        Writer writer = current;
+        return writer != null && !writer.failed;
+    }
+
+    /**
+     * Нужны ли UUID получателей (иначе PreparedBroadcast их не собирает)
+     */
+    public static boolean isPerPlayer()
+    {
+        Writer writer = current;
+        return writer != null && !writer.failed && writer.perPlayer;
+    }
+
+    /**
+     * Применяет настройки Config. Без изменений ничего не делает; иначе старый поток дописывает свой буфер
+     * и завершается, а новый пишет в новый буфер. Выключенный журнал не создает поток и файл. Только основной поток
+     */
+    public static synchronized void configure(boolean auditEnabled, boolean auditPerPlayer, Path file, long maxBytes, int maxFiles)
+    {
+        Writer previous = current;
+        if (previous == null ? !auditEnabled
+                : auditEnabled && !previous.failed && previous.sameSettings(auditPerPlayer, file, maxBytes, maxFiles))
+            return;
+
+        current = null;
+        if (previous != null)
+            previous.finish();
+        if (!auditEnabled)
+            return;
+
+        Writer writer = new Writer(auditPerPlayer, file, maxBytes, maxFiles, previous != null ? previous.thread : null);
+        writer.thread.start();
+        current = writer;
+    }
+
+    /**
+     * Останавливает поток журнала, дождавшись записи накопленного (остановка сервера)
+     */
+    public static synchronized void stop()
+    {
+        Writer writer = current;
+        current = null;
+        if (writer == null)
+            return;
+
+        writer.finish();
+        try
+        {
+            writer.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Записывает доставку группы получателей. Только основной поток; никогда не блокируется
+     */
+    public static void record(String type, int messageIndex, String language, int recipientCount, UUID[] playerIds)
+    {
+        Writer writer = current;
+        if (writer == null || writer.failed || recipientCount <= 0)
+            return;
+
+        Ring ring = writer.ring;
+        long sequence = ring.head.get();
+        if (sequence - ring.tail.get() >= CAPACITY)
+        {
+            NotifyMetrics.AUDIT_DROPPED.increment();
+            return;
+        }
+
+        int slot = (int) (sequence & MASK);
+        ring.timestamps[slot] = System.currentTimeMillis();
+        ring.types[slot] = type;
+        ring.messageIndexes[slot] = messageIndex;
+        ring.languages[slot] = language;
+        ring.recipients[slot] = recipientCount;
+        ring.players[slot] = playerIds;
+        // Публикуем запись после заполнения слота
+        ring.head.lazySet(sequence + 1);
+    }
+
+    private static void run(Writer writer)
+    {
+        FileChannel channel = null;
+        try
+        {
+            if (writer.previous != null)
+                writer.previous.join();
+
+            Files.createDirectories(writer.file.toAbsolutePath().getParent());
+            channel = open(writer.file);
+            while (writer.running)
+            {
+                LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+                channel = flush(writer, channel);
+            }
+            flush(writer, channel);
+        }
+        catch (IOException e)
+        {
+            ExampleMod.LOGGER.warn("[Notify] Delivery audit log {} disabled: {}", writer.file, e.getMessage());
+            writer.failed = true;
+        }
+        catch (InterruptedException e)
+        {
+            writer.failed = true;
+        }
+        finally
+        {
+            close(channel);
+        }
+    }
+
+    // Одна последовательная запись всех накопленных строк; после нее - ротация по размеру
+    private static FileChannel flush(Writer writer, FileChannel channel) throws IOException
+    {
+        Ring ring = writer.ring;
+        long from = ring.tail.get();
+        long to = ring.head.get();
+        if (from == to)
+            return channel;
+
+        StringBuilder out = new StringBuilder((int) Math.min(1 << 20, (to - from) * 96));
+        for (long sequence = from; sequence < to; sequence++)
+        {
+            int slot = (int) (sequence & MASK);
+            out.append(Instant.ofEpochMilli(ring.timestamps[slot]))
+               .append(" type=").append(ring.types[slot])
+               .append(" index=").append(ring.messageIndexes[slot])
+               .append(" lang=").append(ring.languages[slot])
+               .append(" recipients=").append(ring.recipients[slot]);
+            UUID[] ids = ring.players[slot];
+            if (ids != null)
+            {
+                out.append(" players=");
+                for (int i = 0; i < ids.length; i++)
+                {
+                    if (i > 0)
+                        out.append(',');
+                    out.append(ids[i]);
+                }
+            }
+            out.append('\n');
+            ring.types[slot] = null;
+            ring.languages[slot] = null;
+            ring.players[slot] = null;
+        }
+        // Слоты свободны - основной поток может писать в них снова
+        ring.tail.lazySet(to);
+
+        ByteBuffer bytes = ByteBuffer.wrap(out.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining())
+        {
+            channel.write(bytes);
+        }
+
+        if (writer.maxBytes > 0 && channel.size() >= writer.maxBytes)
+        {
+            close(channel);
+            rotate(writer.file, writer.maxFiles);
+            channel = open(writer.file);
+        }
+        return channel;
+    }
+
+    // notify-audit.log -> .1 -> .2 ... самый старый файл удаляется
+    private static void rotate(Path file, int maxFiles) throws IOException
+    {
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + "." + maxFiles));
+        for (int index = maxFiles - 1; index >= 1; index--)
+        {
+            Path older = file.resolveSibling(file.getFileName() + "." + index);
+            if (Files.exists(older))
+                Files.move(older, file.resolveSibling(file.getFileName() + "." + (index + 1)), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static FileChannel open(Path file) throws IOException
+    {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void close(FileChannel channel)
+    {
+        if (channel == null)
+            return;
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            ExampleMod.LOGGER.warn("[Notify] Failed to close delivery audit log: {}", e.getMessage());
+        }
+    }
+}
@@ -46,5 +46,7 @@ public class ExampleMod
         // Initialize message scheduler when server starts
         MessageScheduler.initialize();
         LOGGER.info("Message Scheduler initialized!");
+        // Слежение за файлом конфига (watchConfig = true)
+        ConfigWatcher.configure(event.getServer());
     }
 }
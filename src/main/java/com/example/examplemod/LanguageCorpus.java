@@ -0,0 +1,329 @@
+package com.example.examplemod;
+
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.file.CommentedFileConfig;
+import net.minecraft.server.MinecraftServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Сообщения, вынесенные в отдельные файлы по языкам (config/notify/<lang>.toml, секции [<type>] с texts).
+ * В ленивом режиме язык загружается в фоне, когда заходит первый игрок с этим языком,
+ * и выгружается, если игроков с ним нет дольше Config.languageEvictSeconds.
+ * Без ленивого режима все файлы разбираются параллельно при загрузке конфига - вместе со Snapshot,
+ * в том же фоновом потоке (prepare), а основной поток только подставляет готовый Corpus (install).
+ * Файлы, не изменившиеся с прошлого разбора, не перечитываются.
+ * Загруженные тексты подмешиваются к сообщениям из основного конфига в Config.refreshLanguages
+ */
+public final class LanguageCorpus
+{
+    private static final String DIRECTORY = "notify";
+
+    // Разобранный файл языка: тип (в нижнем регистре) -> сообщения и отметка файла на момент чтения
+    private static final class LanguageFile
+    {
+        final Map<String, List<String>> messages;
+        final FileTime modified;
+        final long size;
+
+        LanguageFile(Map<String, List<String>> messages, FileTime modified, long size)
+        {
+            this.messages = messages;
+            this.modified = modified;
+            this.size = size;
+        }
+
+        // Файл не менялся с момента чтения
+        boolean isCurrent(Path path)
+        {
+            try
+            {
+                return modified.equals(Files.getLastModifiedTime(path)) && size == Files.size(path);
+            }
+            catch (IOException e)
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Файлы языков, разобранные для Snapshot вне основного потока (prepare); применяются в Config.apply
+     */
+    static final class Corpus
+    {
+        final Set<String> available;
+        final ConcurrentHashMap<String, LanguageFile> loaded;
+
+        private Corpus(Set<String> available, ConcurrentHashMap<String, LanguageFile> loaded)
+        {
+            this.available = available;
+            this.loaded = loaded;
+        }
+    }
+
+    // Языки из supportedLanguages, для которых есть файл
+    private static volatile Set<String> available = Set.of();
+    // Загруженные языки (таблица заменяется целиком при install)
+    private static volatile ConcurrentHashMap<String, LanguageFile> loaded = new ConcurrentHashMap<>();
+    // Языки, загрузка которых уже идет в фоне (только основной поток)
+    private static final Set<String> loading = new HashSet<>();
+    // С какого времени у загруженного языка нет игроков (только основной поток)
+    private static final Map<String, Long> idleSince = new HashMap<>();
+    // Увеличивается при перезагрузке конфига - результаты устаревших фоновых загрузок отбрасываются
+    private static int generation;
+    private static ExecutorService executor;
+
+    private LanguageCorpus()
+    {
+    }
+
+    /**
+     * Разбирает файлы языков для нового конфига: уже загруженные языки (или все, если режим не ленивый)
+     * параллельно, чтобы изменения файлов применились вместе с конфигом. Неизменившиеся файлы берутся
+     * из текущей таблицы. Статические поля не трогает - вызывается вместе с Config.loadSnapshot в фоне
+     */
+    static Corpus prepare(List<String> languages, boolean lazy)
+    {
+        Set<String> found = new HashSet<>();
+        for (String lang : languages)
+        {
+            if (Files.isRegularFile(getLanguagePath(lang)))
+                found.add(lang);
+        }
+
+        Map<String, LanguageFile> current = loaded;
+        Set<String> toLoad = new HashSet<>(lazy ? current.keySet() : found);
+        toLoad.retainAll(found);
+
+        ConcurrentHashMap<String, LanguageFile> result = new ConcurrentHashMap<>();
+        List<String> order = new ArrayList<>();
+        for (String lang : toLoad)
+        {
+            LanguageFile previous = current.get(lang);
+            if (previous != null && previous.isCurrent(getLanguagePath(lang)))
+                result.put(lang, previous);
+            else
+                order.add(lang);
+        }
+        if (order.isEmpty())
+            return new Corpus(found, result);
+
+        long startNanos = System.nanoTime();
+        List<Future<LanguageFile>> results = new ArrayList<>();
+        for (String lang : order)
+        {
+            results.add(executor().submit(() -> read(lang)));
+        }
+        int read = 0;
+        for (int i = 0; i < order.size(); i++)
+        {
+            try
+            {
+                result.put(order.get(i), results.get(i).get());
+                read++;
+            }
+            catch (Exception e)
+            {
+                ExampleMod.LOGGER.error("[Notify] Failed to load language file for '{}': {}", order.get(i), e.toString());
+            }
+        }
+        ExampleMod.LOGGER.info("[Notify] Loaded {} language files in {} ms ({} unchanged)", read,
+                               (System.nanoTime() - startNanos) / 1_000_000L, result.size() - read);
+        return new Corpus(found, result);
+    }
+
+    /**
+     * Подставляет разобранные файлы языков. Незавершенные загрузки по требованию отбрасываются. Только основной поток
+     */
+    static void install(Corpus corpus)
+    {
+        generation++;
+        loading.clear();
+        idleSince.clear();
+        available = corpus.available;
+        loaded = corpus.loaded;
+    }
+
+    /**
+     * Сообщения типа из загруженного файла языка или null
+     */
+    public static List<String> getMessages(String lang, String typeLower)
+    {
+        LanguageFile file = loaded.get(lang);
+        return file != null ? file.messages.get(typeLower) : null;
+    }
+
+    /**
+     * Для языка есть отдельный файл (загруженный или нет)
+     */
+    public static boolean hasFile(String lang)
+    {
+        return available.contains(lang);
+    }
+
+    public static boolean isLoaded(String lang)
+    {
+        return loaded.containsKey(lang);
+    }
+
+    public static int getLoadedCount()
+    {
+        return loaded.size();
+    }
+
+    /**
+     * Запускает фоновую загрузку языка, если у него есть файл и он еще не загружен. Только основной поток
+     */
+    public static void request(MinecraftServer server, String lang)
+    {
+        if (lang == null || !available.contains(lang) || loaded.containsKey(lang) || !loading.add(lang))
+            return;
+
+        int requestGeneration = generation;
+        executor().execute(() -> {
+            LanguageFile file;
+            try
+            {
+                file = read(lang);
+            }
+            catch (Exception e)
+            {
+                ExampleMod.LOGGER.error("[Notify] Failed to load language file for '{}': {}", lang, e.toString());
+                server.execute(() -> loading.remove(lang));
+                return;
+            }
+
+            // Применяем на основном потоке: подмешиваем тексты и пересобираем затронутые типы
+            server.execute(() -> {
+                if (requestGeneration != generation)
+                    return;
+
+                loading.remove(lang);
+                loaded.put(lang, file);
+                ExampleMod.LOGGER.info("[Notify] Language '{}' loaded on demand", lang);
+                Config.refreshLanguages();
+                MessageScheduler.refreshMessages();
+            });
+        });
+    }
+
+    /**
+     * Загружает используемые языки и выгружает те, что не используются дольше evictAfterSeconds.
+     * used - признак использования по id языка (с учетом цепочек fallback). Только основной поток
+     */
+    static void updateUsage(MinecraftServer server, boolean[] used, long nowMillis, int evictAfterSeconds)
+    {
+        List<String> languages = Config.supportedLanguages;
+        for (int id = 0; id < used.length && id < languages.size(); id++)
+        {
+            String lang = languages.get(id);
+            if (used[id])
+            {
+                idleSince.remove(lang);
+                request(server, lang);
+            }
+            else if (loaded.containsKey(lang))
+            {
+                idleSince.putIfAbsent(lang, nowMillis);
+            }
+        }
+
+        if (evictAfterSeconds <= 0)
+            return;
+
+        boolean evicted = false;
+        Iterator<Map.Entry<String, Long>> iterator = idleSince.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (nowMillis - entry.getValue() >= evictAfterSeconds * 1000L)
+            {
+                iterator.remove();
+                if (loaded.remove(entry.getKey()) != null)
+                {
+                    ExampleMod.LOGGER.info("[Notify] Language '{}' evicted (no players)", entry.getKey());
+                    evicted = true;
+                }
+            }
+        }
+
+        if (evicted)
+        {
+            Config.refreshLanguages();
+            MessageScheduler.refreshMessages();
+        }
+    }
+
+    public static synchronized void shutdown()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public static Path getLanguagePath(String lang)
+    {
+        return Config.getConfigPath().resolveSibling(DIRECTORY).resolve(lang + ".toml");
+    }
+
+    // Разбор файла языка: каждая секция верхнего уровня - тип сообщения. Отметка файла снимается до чтения,
+    // поэтому изменение во время разбора заметит следующий prepare
+    private static LanguageFile read(String lang) throws IOException
+    {
+        Path path = getLanguagePath(lang);
+        FileTime modified = Files.getLastModifiedTime(path);
+        long size = Files.size(path);
+        Map<String, List<String>> messages = new HashMap<>();
+        CommentedFileConfig file = Config.open(path);
+        try
+        {
+            file.load();
+            for (Map.Entry<String, Object> entry : file.valueMap().entrySet())
+            {
+                if (entry.getValue() instanceof UnmodifiableConfig section)
+                {
+                    List<String> texts = section.get("texts");
+                    if (texts != null && !texts.isEmpty())
+                        messages.put(entry.getKey().toLowerCase(Locale.ROOT), List.copyOf(texts));
+                }
+            }
+        }
+        finally
+        {
+            file.close();
+        }
+        return new LanguageFile(messages, modified, size);
+    }
+
+    private static synchronized ExecutorService executor()
+    {
+        if (executor == null)
+        {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "Notify-LanguageLoader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
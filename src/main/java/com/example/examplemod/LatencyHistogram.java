@@ -0,0 +1,88 @@
+package com.example.examplemod;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free гистограмма длительностей в наносекундах с корзинами по степеням двойки.
+ * Корзина i содержит значения из [2^(i-1), 2^i), запись - одна атомарная операция и LongAdder
+ */
+public final class LatencyHistogram
+{
+    public static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos)
+    {
+        if (nanos < 0)
+            nanos = 0;
+
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        sum.add(nanos);
+
+        long currentMax = max.get();
+        while (nanos > currentMax && !max.compareAndSet(currentMax, nanos))
+        {
+            currentMax = max.get();
+        }
+    }
+
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    public long getSum()
+    {
+        return sum.sum();
+    }
+
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    public long getBucket(int index)
+    {
+        return buckets.get(index);
+    }
+
+    /**
+     * Верхняя граница корзины в наносекундах
+     */
+    public static long upperBound(int index)
+    {
+        return index >= 63 ? Long.MAX_VALUE : 1L << index;
+    }
+
+    /**
+     * Оценка перцентиля (0..1) по верхней границе корзины
+     */
+    public long percentile(double quantile)
+    {
+        long total = getCount();
+        if (total == 0)
+            return 0;
+
+        long target = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += buckets.get(i);
+            if (seen >= target)
+                return Math.min(upperBound(i), getMax());
+        }
+        return getMax();
+    }
+
+    private static int bucketOf(long nanos)
+    {
+        return 64 - Long.numberOfLeadingZeros(nanos);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.examplemod;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Разрешение языка клиента в id языка (индекс в Config.supportedLanguages).
+ * Поддерживает региональные варианты (pt_br, zh_tw) с цепочками fallback (pt_br -> pt -> en),
+ * которые компилируются один раз при загрузке конфига. Сырые строки локали клиента кэшируются,
+ * поэтому повторное разрешение не выделяет память
+ */
+public final class LocaleResolver
+{
+    public static final int UNSUPPORTED = -1;
+    // Ограничение кэша - клиент может прислать произвольную строку локали
+    private static final int CACHE_LIMIT = 1024;
+    private static final int[] NO_CHAIN = new int[0];
+
+    private final List<String> languages;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final int[][] fallbackChains;
+    private final int[] defaultChain;
+    private final int defaultId;
+    private final ConcurrentHashMap<String, Integer> cache = new ConcurrentHashMap<>();
+
+    public LocaleResolver(List<String> languages)
+    {
+        this.languages = List.copyOf(languages);
+        for (int i = 0; i < languages.size(); i++)
+        {
+            ids.putIfAbsent(normalize(languages.get(i)), i);
+        }
+        this.defaultId = getId("en");
+
+        // Цепочки: сам язык -> базовый язык (для региональных вариантов) -> английский
+        this.fallbackChains = new int[languages.size()][];
+        for (int i = 0; i < languages.size(); i++)
+        {
+            List<Integer> chain = new ArrayList<>(3);
+            chain.add(i);
+
+            String code = normalize(languages.get(i));
+            int separatorIndex = code.indexOf('_');
+            if (separatorIndex > 0)
+            {
+                int baseId = getId(code.substring(0, separatorIndex));
+                if (baseId != UNSUPPORTED && !chain.contains(baseId))
+                    chain.add(baseId);
+            }
+            if (defaultId != UNSUPPORTED && !chain.contains(defaultId))
+                chain.add(defaultId);
+
+            fallbackChains[i] = chain.stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.defaultChain = defaultId != UNSUPPORTED ? new int[] { defaultId } : NO_CHAIN;
+    }
+
+    /**
+     * Id языка по точному коду из конфига или UNSUPPORTED
+     */
+    public int getId(String code)
+    {
+        Integer id = ids.get(code);
+        if (id == null)
+            id = ids.get(normalize(code));
+        return id != null ? id : UNSUPPORTED;
+    }
+
+    /**
+     * Id английского языка или UNSUPPORTED, если его нет в supportedLanguages
+     */
+    public int getDefaultId()
+    {
+        return defaultId;
+    }
+
+    /**
+     * Разрешает локаль клиента ("pt_BR", "en-us", "ru") в id языка:
+     * точный региональный вариант -> базовый язык -> английский -> UNSUPPORTED
+     */
+    public int resolve(String rawLocale)
+    {
+        if (rawLocale == null || rawLocale.isEmpty())
+            return defaultId;
+
+        Integer cached = cache.get(rawLocale);
+        if (cached != null)
+            return cached;
+
+        int id = resolveUncached(rawLocale);
+        if (cache.size() < CACHE_LIMIT)
+        {
+            cache.put(rawLocale, id);
+        }
+        return id;
+    }
+
+    private int resolveUncached(String rawLocale)
+    {
+        String normalized = normalize(rawLocale);
+        Integer id = ids.get(normalized);
+        if (id != null)
+            return id;
+
+        // Базовый язык: часть до разделителя или первые 2 символа короткого кода
+        String base = normalized;
+        int separatorIndex = normalized.indexOf('_');
+        if (separatorIndex > 0)
+        {
+            base = normalized.substring(0, separatorIndex);
+        }
+        else if (normalized.length() >= 2)
+        {
+            base = normalized.substring(0, 2);
+        }
+
+        id = ids.get(base);
+        return id != null ? id : defaultId;
+    }
+
+    /**
+     * Цепочка id языков для поиска сообщений, начиная с самого языка.
+     * Для UNSUPPORTED - только английский (если он поддерживается)
+     */
+    public int[] getFallbackChain(int id)
+    {
+        return id >= 0 && id < fallbackChains.length ? fallbackChains[id] : defaultChain;
+    }
+
+    public String getCode(int id)
+    {
+        return id >= 0 && id < languages.size() ? languages.get(id) : null;
+    }
+
+    public int size()
+    {
+        return languages.size();
+    }
+
+    // "pt-BR " -> "pt_br"
+    private static String normalize(String code)
+    {
+        return code.trim().toLowerCase(Locale.ROOT).replace('-', '_');
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.examplemod;
+
+import net.minecraft.ChatFormatting;
+import net.minecraft.network.chat.ClickEvent;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.HoverEvent;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.network.chat.Style;
+import net.minecraft.network.chat.TextColor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Компилятор разметки сообщений в дерево Component (теги в духе MiniMessage).
+ * Разметка разбирается один раз при сборке типа, при отправке используется готовое дерево.
+ * Поддерживаются цвета (<red>, <#ff8800>, <color:gold>), <bold>/<b>, <italic>/<i>, <underlined>/<u>,
+ * <strikethrough>/<st>, <obfuscated>/<obf>, <reset>, а также кликабельные участки
+ * <click:url|run|suggest|copy:значение> и подсказки <hover:текст>. Закрывающий тег </имя> (или </>)
+ * возвращает стиль, действовавший до открытия тега; \< - символ '<' без тега.
+ * Неизвестные теги остаются в тексте как есть, коды § продолжают работать внутри участков
+ */
+public final class MarkupCompiler
+{
+    // Открытый тег и стиль, который действовал до него
+    private static final class Frame
+    {
+        final String name;
+        final Style previous;
+
+        Frame(String name, Style previous)
+        {
+            this.name = name;
+            this.previous = previous;
+        }
+    }
+
+    private MarkupCompiler()
+    {
+    }
+
+    // Участок текста со своим стилем
+    static final class Span
+    {
+        final String text;
+        final Style style;
+
+        Span(String text, Style style)
+        {
+            this.text = text;
+            this.style = style;
+        }
+    }
+
+    // Разобранная разметка: участки по порядку и есть ли среди них свои <click>
+    static final class Markup
+    {
+        final List<Span> spans = new ArrayList<>();
+        boolean clickSpans;
+    }
+
+    /**
+     * Компилирует текст с разметкой или возвращает null, если в нем нет ни одного известного тега.
+     * lineClick/lineHover - клик всей строки из clickValues; применяется, только если в разметке нет своих <click>
+     */
+    public static Component compile(String text, ClickEvent lineClick, HoverEvent lineHover)
+    {
+        Markup markup = parse(text);
+        if (markup == null)
+            return null;
+
+        MutableComponent root = Component.literal("");
+        for (Span span : markup.spans)
+        {
+            root.append(Component.literal(span.text).withStyle(span.style));
+        }
+        if (lineClick != null && !markup.clickSpans)
+            return root.withStyle(lineStyle -> lineStyle.withClickEvent(lineClick).withHoverEvent(lineHover));
+        return root;
+    }
+
+    /**
+     * Разбирает разметку на участки со стилями или возвращает null, если известных тегов нет.
+     * Текст участков не трогается, поэтому {переменные} в нем остаются для ComponentTemplate
+     */
+    static Markup parse(String text)
+    {
+        if (text.indexOf('<') < 0)
+            return null;
+
+        Markup result = new Markup();
+        List<Frame> stack = new ArrayList<>();
+        StringBuilder span = new StringBuilder();
+        Style style = Style.EMPTY;
+        boolean markup = false;
+
+        int position = 0;
+        while (position < text.length())
+        {
+            char c = text.charAt(position);
+            if (c == '\\' && position + 1 < text.length() && text.charAt(position + 1) == '<')
+            {
+                span.append('<');
+                position += 2;
+                continue;
+            }
+
+            int close = c == '<' ? text.indexOf('>', position + 1) : -1;
+            if (close > position + 1)
+            {
+                String tag = text.substring(position + 1, close);
+                if (tag.charAt(0) == '/')
+                {
+                    // Закрывающий тег: последний открытый с тем же именем (</> - последний открытый)
+                    String name = tagName(tag.substring(1));
+                    int frame = stack.size() - 1;
+                    while (frame >= 0 && !name.isEmpty() && !stack.get(frame).name.equals(name))
+                    {
+                        frame--;
+                    }
+                    if (frame >= 0)
+                    {
+                        flush(result, span, style);
+                        style = stack.get(frame).previous;
+                        stack.subList(frame, stack.size()).clear();
+                        markup = true;
+                        position = close + 1;
+                        continue;
+                    }
+                }
+                else if (tag.equalsIgnoreCase("reset"))
+                {
+                    flush(result, span, style);
+                    style = Style.EMPTY;
+                    stack.clear();
+                    markup = true;
+                    position = close + 1;
+                    continue;
+                }
+                else
+                {
+                    Style next = apply(style, tag);
+                    if (next != null)
+                    {
+                        flush(result, span, style);
+                        stack.add(new Frame(tagName(tag), style));
+                        style = next;
+                        result.clickSpans |= tagName(tag).equals("click");
+                        markup = true;
+                        position = close + 1;
+                        continue;
+                    }
+                }
+            }
+
+            span.append(c);
+            position++;
+        }
+
+        if (!markup)
+            return null;
+
+        flush(result, span, style);
+        return result;
+    }
+
+    // Участок текста с текущим стилем (дочерние элементы наследуют стиль строки, если он задан)
+    private static void flush(Markup markup, StringBuilder span, Style style)
+    {
+        if (span.length() == 0)
+            return;
+
+        markup.spans.add(new Span(span.toString(), style));
+        span.setLength(0);
+    }
+
+    // Стиль после открывающего тега или null, если тег неизвестен
+    private static Style apply(Style style, String tag)
+    {
+        String name = tagName(tag);
+        int separator = tag.indexOf(':');
+        String argument = separator >= 0 ? unquote(tag.substring(separator + 1)) : "";
+
+        switch (name)
+        {
+            case "bold", "b":
+                return style.withBold(true);
+            case "italic", "i", "em":
+                return style.withItalic(true);
+            case "underlined", "u":
+                return style.withUnderlined(true);
+            case "strikethrough", "st":
+                return style.withStrikethrough(true);
+            case "obfuscated", "obf":
+                return style.withObfuscated(true);
+            case "color", "c":
+                return withColor(style, argument.toLowerCase(Locale.ROOT));
+            case "click":
+                return withClick(style, argument);
+            case "hover":
+                return argument.isEmpty() ? null
+                        : style.withHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, Component.literal(argument)));
+            default:
+                return separator < 0 ? withColor(style, name) : null;
+        }
+    }
+
+    // Именованный цвет (red, dark_aqua, ...) или #rrggbb
+    private static Style withColor(Style style, String color)
+    {
+        if (color.length() == 7 && color.charAt(0) == '#')
+        {
+            try
+            {
+                return style.withColor(TextColor.fromRgb(Integer.parseInt(color.substring(1), 16)));
+            }
+            catch (NumberFormatException e)
+            {
+                return null;
+            }
+        }
+
+        ChatFormatting formatting = ChatFormatting.getByName(color);
+        return formatting != null && formatting.isColor() ? style.withColor(formatting) : null;
+    }
+
+    // click:действие:значение (значение может содержать ':', например URL)
+    private static Style withClick(Style style, String argument)
+    {
+        int separator = argument.indexOf(':');
+        if (separator <= 0 || separator == argument.length() - 1)
+            return null;
+
+        String value = unquote(argument.substring(separator + 1));
+        ClickEvent.Action action = switch (argument.substring(0, separator).toLowerCase(Locale.ROOT))
+        {
+            case "url", "open_url" -> ClickEvent.Action.OPEN_URL;
+            case "run", "run_command" -> ClickEvent.Action.RUN_COMMAND;
+            case "suggest", "suggest_command" -> ClickEvent.Action.SUGGEST_COMMAND;
+            case "copy", "copy_to_clipboard" -> ClickEvent.Action.COPY_TO_CLIPBOARD;
+            default -> null;
+        };
+        return action != null ? style.withClickEvent(new ClickEvent(action, value)) : null;
+    }
+
+    private static String tagName(String tag)
+    {
+        int separator = tag.indexOf(':');
+        return (separator >= 0 ? tag.substring(0, separator) : tag).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String unquote(String value)
+    {
+        if (value.length() >= 2)
+        {
+            char first = value.charAt(0);
+            if ((first == '\'' || first == '"') && value.charAt(value.length() - 1) == first)
+                return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
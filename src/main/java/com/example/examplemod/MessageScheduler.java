@@ -1,30 +1,57 @@
 package com.example.examplemod;
 
-import net.minecraft.network.chat.Component;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PermissionsChangedEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Mod.EventBusSubscriber(modid = ExampleMod.MODID)
 public class MessageScheduler
 {
     private static final List<MessageType> messageTypes = new ArrayList<>();
+    // Очередь типов по тику следующей отправки - onServerTick смотрит только на вершину
+    private static final DeadlineHeap<MessageType> schedule = new DeadlineHeap<>();
+    // Очередь типов по тику начала фоновой подготовки (тик отправки - Config.prepareAheadTicks)
+    private static final DeadlineHeap<MessageType> prepareQueue = new DeadlineHeap<>();
+    // Рассылки, доставляемые порциями на протяжении нескольких тиков
+    private static final List<PreparedBroadcast> inFlight = new ArrayList<>();
+    // Фазы типов внутри интервалов (разносит отправки разных типов по времени)
+    private static final PhasePlanner phasePlanner = new PhasePlanner();
+    // Состояние нагрузки сервера: откладывание типов с низким приоритетом и уменьшение порций доставки
+    private static final TickThrottle throttle = new TickThrottle();
+    // Отложенный тип проверяется снова через секунду; догоняющие отправки после лага - не чаще раза в секунду
+    private static final long DEFER_RETRY_TICKS = 20L;
+    private static final long CATCH_UP_SPACING_TICKS = 20L;
+    private static long nextCatchUpTick = 0;
+    // Текущий тик сервера (монотонный, не зависит от системных часов)
+    private static long currentTick = 0;
+    // Состояние сервера для условий типов - снимается не больше одного раза за тик
+    private static final ServerSnapshot serverState = new ServerSnapshot();
     private static boolean initialized = false;
-    // Хранилище языков игроков (UUID -> код языка)
-    private static final Map<UUID, String> playerLanguages = new HashMap<>();
-    // Время последней проверки языка для каждого игрока (UUID -> timestamp)
-    private static final Map<UUID, Long> lastLanguageCheck = new HashMap<>();
+    // Хранилище языков игроков (UUID -> id языка и время последней проверки); читается и фоновым потоком подготовки
+    private static final PlayerLanguageStore playerLanguages = new PlayerLanguageStore(Config.supportedLanguages);
     // Интервал проверки языка в миллисекундах (300 секунд)
     private static final long LANGUAGE_CHECK_INTERVAL_MS = 300_000L;
+    // Как часто проверять, какие файлы языков нужны онлайн-игрокам (10 секунд)
+    private static final long LANGUAGE_USAGE_CHECK_TICKS = 200L;
+    private static long nextLanguageCheckTick = 0;
+    private static final long MILLIS_PER_TICK = 50L;
+    // Индекс сегментов аудитории (права, измерение, новые игроки, команды) по слотам онлайн-игроков
+    private static final AudienceIndex audienceIndex = new AudienceIndex();
+    // Команды из excludeTeams текущих типов - их состав обновляется вместе с проверкой языков
+    private static Set<String> trackedTeams = Set.of();
 
     public static void initialize()
     {
@@ -32,6 +59,15 @@ public class MessageScheduler
             return;
 
         messageTypes.clear();
+        schedule.clear();
+        prepareQueue.clear();
+        phasePlanner.clear();
+        // Id языков указывают в Config.supportedLanguages - переводим их на актуальный список
+        playerLanguages.remap(Config.supportedLanguages);
+        // Расписание прошлого запуска сервера: типы продолжают свой ритм, а не срабатывают все сразу
+        if (!ScheduleState.isOpen())
+            ScheduleState.open(Config.getScheduleStatePath());
+        long now = System.currentTimeMillis();
 
         // Инициализируем типы сообщений из конфига
         for (String typeName : Config.messageTypes)
@@ -39,161 +75,443 @@ public class MessageScheduler
             Config.MessageConfig config = Config.messageConfigs.get(typeName);
             if (config != null)
             {
-                messageTypes.add(new MessageType(typeName, config.messagesByLang, config.clickValues,
-                                                config.intervalSeconds, config.clickable, config.clickType));
+                messageTypes.add(new MessageType(typeName, config));
             }
         }
 
+        // Разносим типы по фазам, чтобы их отправки не совпадали
+        phasePlanner.plan(messageTypes);
+        for (MessageType messageType : messageTypes)
+        {
+            long lastSentMillis = ScheduleState.getLastSentMillis(messageType.getName());
+            if (lastSentMillis >= 0)
+            {
+                messageType.restoreSchedule(currentTick, (now - lastSentMillis) / MILLIS_PER_TICK);
+            }
+            else
+            {
+                // Тип еще не отправлялся - первая отправка на ближайшем тике его фазы
+                messageType.scheduleFirst(currentTick);
+            }
+            schedule.add(messageType, messageType.getWakeTick());
+            schedulePreparation(messageType);
+        }
+
+        trackedTeams = AudienceIndex.collectTeams(messageTypes);
+        audienceIndex.track(trackedTeams);
+
+        // Периодическая выгрузка метрик и журнал доставки (перезапускаются с актуальными настройками)
+        MetricsExporter.configure(Config.metricsDumpIntervalSeconds, Config.metricsDumpFormat, Config.getMetricsDumpPath());
+        configureAudit();
+
         initialized = true;
     }
 
+    /**
+     * Заменяет типы из конфига и онлайн-игроков готовыми (бенчмарки): без состояния расписания, метрик
+     * и журнала доставки, которым нужны пути FML. Получатели добавляются без сегментов аудитории,
+     * типы отправляются на ближайшем тике своей фазы
+     */
+    static void install(List<MessageType> types, List<? extends NotifyRecipient> recipients, long tick)
+    {
+        reset();
+        for (PreparedBroadcast broadcast : inFlight)
+        {
+            broadcast.release();
+        }
+        inFlight.clear();
+        currentTick = tick;
+        phasePlanner.clear();
+        audienceIndex.clear();
+        for (NotifyRecipient recipient : recipients)
+        {
+            audienceIndex.add(recipient);
+        }
+
+        messageTypes.addAll(types);
+        phasePlanner.plan(messageTypes);
+        for (MessageType messageType : messageTypes)
+        {
+            messageType.scheduleFirst(currentTick);
+            schedule.add(messageType, messageType.getWakeTick());
+            schedulePreparation(messageType);
+        }
+        initialized = true;
+    }
+
+    /**
+     * Применяет перезагруженный конфиг без сброса расписания (/notify reload и ConfigWatcher).
+     * Неизмененные типы остаются как есть, у измененных сохраняется таймер, новые отправляются на ближайшем тике своей фазы.
+     * Вызывается только с основного потока
+     */
+    public static void applyConfig()
+    {
+        if (!initialized)
+        {
+            initialize();
+            return;
+        }
+
+        // При смене списка языков строки таблиц всех типов сдвигаются - пересобираем каждый тип
+        boolean languagesChanged = !playerLanguages.hasLanguages(Config.supportedLanguages);
+        playerLanguages.remap(Config.supportedLanguages);
+        rebuildTypes(languagesChanged);
+        MetricsExporter.configure(Config.metricsDumpIntervalSeconds, Config.metricsDumpFormat, Config.getMetricsDumpPath());
+        configureAudit();
+        // Файлы языков перечитаны - сразу запрашиваем языки онлайн-игроков
+        nextLanguageCheckTick = currentTick;
+    }
+
+    private static void configureAudit()
+    {
+        DeliveryAudit.configure(Config.auditEnabled, Config.auditPerPlayer, Config.getAuditPath(),
+                                Config.auditMaxFileMegabytes * 1024L * 1024L, Config.auditMaxFiles);
+    }
+
+    /**
+     * Пересобирает типы, сообщения которых изменились после загрузки или выгрузки файла языка
+     */
+    public static void refreshMessages()
+    {
+        if (initialized)
+            rebuildTypes(false);
+    }
+
+    private static void rebuildTypes(boolean languagesChanged)
+    {
+        Map<String, MessageType> previousTypes = new HashMap<>();
+        for (MessageType messageType : messageTypes)
+        {
+            previousTypes.put(messageType.getName(), messageType);
+        }
+
+        List<MessageType> updatedTypes = new ArrayList<>();
+        // Пересобранные типы и их прежние версии (null - новый тип)
+        Map<MessageType, MessageType> rebuilt = new LinkedHashMap<>();
+        for (String typeName : Config.messageTypes)
+        {
+            Config.MessageConfig config = Config.messageConfigs.get(typeName);
+            if (config == null)
+                continue;
+
+            MessageType previous = previousTypes.remove(typeName);
+            if (previous != null && !languagesChanged && config.sameAs(previous.getConfig()))
+            {
+                updatedTypes.add(previous);
+                continue;
+            }
+
+            MessageType messageType = new MessageType(typeName, config);
+            rebuilt.put(messageType, previous);
+            updatedTypes.add(messageType);
+        }
+
+        // Типы с прежним интервалом сохраняют фазу, новые и измененные размещаются в свободные места
+        phasePlanner.plan(updatedTypes);
+        for (Map.Entry<MessageType, MessageType> entry : rebuilt.entrySet())
+        {
+            MessageType messageType = entry.getKey();
+            MessageType previous = entry.getValue();
+            if (previous != null)
+            {
+                messageType.inheritSchedule(previous, currentTick);
+                unschedule(previous);
+            }
+            else
+            {
+                messageType.scheduleFirst(currentTick);
+            }
+            schedule.add(messageType, messageType.getWakeTick());
+            schedulePreparation(messageType);
+        }
+
+        // Типы, которых больше нет в конфиге
+        for (MessageType removed : previousTypes.values())
+        {
+            unschedule(removed);
+        }
+
+        messageTypes.clear();
+        messageTypes.addAll(updatedTypes);
+        trackedTeams = AudienceIndex.collectTeams(messageTypes);
+        audienceIndex.track(trackedTeams);
+        ExampleMod.LOGGER.info("[Notify] Config applied: {} types rebuilt, {} removed, {} unchanged",
+                               rebuilt.size(), previousTypes.size(), updatedTypes.size() - rebuilt.size());
+    }
+
+    // Убирает тип из очередей планировщика и сбрасывает его подготовленную рассылку
+    private static void unschedule(MessageType messageType)
+    {
+        schedule.remove(messageType);
+        prepareQueue.remove(messageType);
+        BroadcastPipeline.discard(messageType);
+    }
+
     @SubscribeEvent
     public static void onServerTick(TickEvent.ServerTickEvent event)
     {
         if (event.phase != TickEvent.Phase.END)
             return;
 
-        if (!initialized)
-            initialize();
-
         MinecraftServer server = event.getServer();
         if (server == null)
             return;
 
-        long currentTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        try
+        {
+            tick(server);
+        }
+        finally
+        {
+            NotifyMetrics.TICK_NANOS.record(System.nanoTime() - startNanos);
+        }
+    }
 
-        // Проверяем каждый тип сообщения
-        for (MessageType messageType : messageTypes)
+    private static void tick(MinecraftServer server)
+    {
+        currentTick = server.getTickCount();
+
+        if (!initialized)
+            initialize();
+
+        throttle.update(server);
+
+        // Подгружаем файлы языков онлайн-игроков и выгружаем неиспользуемые
+        if (currentTick >= nextLanguageCheckTick)
         {
-            if (messageType.shouldSend(currentTime))
-            {
-                // Отправляем сообщение всем игрокам (каждому на его языке)
-                sendMessageToAllPlayers(server, messageType);
-                messageType.setLastSentTime(currentTime);
-            }
+            nextLanguageCheckTick = currentTick + LANGUAGE_USAGE_CHECK_TICKS;
+            checkLanguageUsage(server);
+            audienceIndex.refresh(server, currentTick, trackedTeams);
         }
+
+        runTick(server, currentTick);
     }
 
     /**
-     * Получает код языка игрока, автоматически обновляя его периодически
-     * Проверяет текущий язык игрока раз в LANGUAGE_CHECK_INTERVAL_MS миллисекунд
+     * Рассылки тика: готовые рассылки конвейера, продолжение растянутых доставок, объявления NotifyApi,
+     * фоновая подготовка и отправка сработавших типов. server нужен только условиям и шаблонам типов
+     * и объявлениям, поэтому бенчмарки вызывают метод без сервера (null) для типов без них
      */
-    private static String getPlayerLanguageCode(ServerPlayer player)
+    static void runTick(MinecraftServer server, long tick)
     {
-        UUID playerUUID = player.getUUID();
-        long currentTime = System.currentTimeMillis();
-        
-        // Получаем время последней проверки языка
-        Long lastCheckTime = lastLanguageCheck.get(playerUUID);
-        
-        // Проверяем язык только если:
-        // 1. Язык еще не проверялся (lastCheckTime == null)
-        // 2. Прошло достаточно времени с последней проверки (больше интервала)
-        boolean shouldCheckLanguage = (lastCheckTime == null) || 
-                                     (currentTime - lastCheckTime >= LANGUAGE_CHECK_INTERVAL_MS);
-        
-        if (shouldCheckLanguage)
+        currentTick = tick;
+
+        // Забираем рассылки, подготовленные фоновым потоком
+        BroadcastPipeline.drainReady();
+
+        // Продолжаем растянутые рассылки - каждая получает свою порцию на каждом тике
+        if (!inFlight.isEmpty())
+            continueDeliveries();
+
+        // Объявления других модов (NotifyApi), не больше нескольких за тик
+        NotifyApi.drain(server);
+
+        // Запускаем фоновую подготовку для типов, до отправки которых осталось prepareAheadTicks
+        while (prepareQueue.peekDeadline() <= currentTick)
+        {
+            MessageType messageType = prepareQueue.poll();
+            // Условие сейчас не выполняется или сервер лагает - не готовим заранее (при отправке проверим еще раз)
+            if (throttle.shouldDefer(messageType.getPriority()) || !conditionMet(server, messageType))
+                continue;
+            BroadcastPipeline.submit(messageType, messageType.getNextFireTick(), currentTick,
+                                     audienceFor(messageType), serverValues(server, messageType));
+        }
+
+        // Ничего не должно отправляться на этом тике - O(1)
+        if (schedule.peekDeadline() > currentTick)
+            return;
+
+        // Извлекаем только сработавшие типы
+        while (schedule.peekDeadline() <= currentTick)
         {
-            // Получаем текущий язык игрока
-            String currentLang = player.getLanguage();
+            MessageType messageType = schedule.poll();
             
-            // Если язык не определен, используем кэшированный или "en"
-            if (currentLang == null || currentLang.isEmpty())
+            // Тип по часам проснулся заранее - уточняем тик отправки (при лагах тики отстают от часов)
+            if (messageType.reaimCalendar(currentTick))
             {
-                String savedLangCode = playerLanguages.get(playerUUID);
-                String langCode = (savedLangCode != null && !savedLangCode.isEmpty()) ? savedLangCode : "en";
-                lastLanguageCheck.put(playerUUID, currentTime);
-                return langCode;
+                schedule.add(messageType, messageType.getWakeTick());
+                schedulePreparation(messageType);
+                continue;
             }
             
-            // Извлекаем код языка из текущего языка игрока
-            String normalized = currentLang.trim().toLowerCase();
-            String extractedLangCode = "en";
-            
-            // Если есть подчеркивание или дефис, берем первую часть
-            int separatorIndex = Math.max(normalized.indexOf('_'), normalized.indexOf('-'));
-            if (separatorIndex > 0)
+            // Предыдущая рассылка типа еще доставляется - откладываем новую, чтобы они не перекрывались
+            if (isInFlight(messageType))
             {
-                extractedLangCode = normalized.substring(0, separatorIndex);
+                schedule.add(messageType, currentTick + 1);
+                continue;
             }
-            else if (normalized.length() >= 2)
+            
+            // Сервер лагает - откладываем тип с низким приоритетом. В очереди у типа одна запись,
+            // поэтому пропущенные за время лага отправки сливаются в одну
+            if (throttle.shouldDefer(messageType.getPriority()))
             {
-                extractedLangCode = normalized.substring(0, 2);
+                NotifyMetrics.THROTTLE_DEFERRALS.increment();
+                schedule.add(messageType, currentTick + DEFER_RETRY_TICKS);
+                continue;
             }
             
-            // Проверяем, что язык поддерживается в конфиге
-            if (!Config.supportedLanguages.contains(extractedLangCode))
+            // После лага отложенные типы догоняют по одному в секунду, а не все на одном тике
+            if (currentTick - messageType.getNextFireTick() >= DEFER_RETRY_TICKS)
             {
-                extractedLangCode = "en";
+                if (currentTick < nextCatchUpTick)
+                {
+                    schedule.add(messageType, nextCatchUpTick);
+                    continue;
+                }
+                nextCatchUpTick = currentTick + CATCH_UP_SPACING_TICKS;
             }
             
-            // Получаем сохраненный язык
-            String savedLangCode = playerLanguages.get(playerUUID);
-            
-            // Если язык изменился, обновляем кэш
-            if (savedLangCode == null || !savedLangCode.equals(extractedLangCode))
+            // Условие типа не выполнено - пропускаем эту отправку
+            if (!conditionMet(server, messageType))
             {
-                playerLanguages.put(playerUUID, extractedLangCode);
-                ExampleMod.LOGGER.debug("[Notify] Language auto-updated for player {}: '{}' -> '{}' (original: '{}')", 
-                                       player.getName().getString(), savedLangCode, extractedLangCode, currentLang);
+                messageType.skip(currentTick);
+                BroadcastPipeline.discard(messageType);
+                schedule.add(messageType, messageType.getWakeTick());
+                schedulePreparation(messageType);
+                continue;
             }
             
-            // Обновляем время последней проверки
-            lastLanguageCheck.put(playerUUID, currentTime);
-            
-            return extractedLangCode;
+            // Отправляем сообщение всем игрокам (каждому на его языке)
+            sendMessageToAllPlayers(server, messageType);
+            messageType.markSent(currentTick);
+            ScheduleState.recordSent(messageType.getName(), System.currentTimeMillis());
+            schedule.add(messageType, messageType.getWakeTick());
+            schedulePreparation(messageType);
+        }
+    }
+
+    // Языки, нужные онлайн-игрокам: их собственные и все языки их цепочек fallback
+    private static void checkLanguageUsage(MinecraftServer server)
+    {
+        LocaleResolver locales = Config.locales;
+        boolean[] used = new boolean[locales.size()];
+        for (int id = 0; id < used.length; id++)
+        {
+            if (playerLanguages.getCount(id) > 0)
+                markUsed(used, locales.getFallbackChain(id));
+        }
+        if (playerLanguages.getCount(PlayerLanguageStore.UNSUPPORTED) > 0)
+            markUsed(used, locales.getFallbackChain(LocaleResolver.UNSUPPORTED));
+
+        LanguageCorpus.updateUsage(server, used, System.currentTimeMillis(), Config.languageEvictSeconds);
+    }
+
+    private static void markUsed(boolean[] used, int[] chain)
+    {
+        for (int id : chain)
+        {
+            used[id] = true;
+        }
+    }
+
+    // Типы без условия не трогают снимок состояния сервера
+    private static boolean conditionMet(MinecraftServer server, MessageType messageType)
+    {
+        if (!messageType.hasCondition())
+            return true;
+
+        serverState.sample(server, currentTick);
+        return messageType.testCondition(serverState);
+    }
+
+    // Доставляет очередную порцию каждой растянутой рассылки и убирает завершенные
+    private static void continueDeliveries()
+    {
+        for (int i = 0; i < inFlight.size(); i++)
+        {
+            PreparedBroadcast broadcast = inFlight.get(i);
+            MessageType messageType = broadcast.getMessageType();
+            if (broadcast.deliver(throttle.deliveryBatch(messageType.getDeliveryBatch()), messageType.getDeliveryBudgetNanos()))
+            {
+                inFlight.remove(i--);
+            }
         }
-        else
+    }
+
+    private static boolean isInFlight(MessageType messageType)
+    {
+        for (PreparedBroadcast broadcast : inFlight)
         {
-            // Используем кэшированный язык без проверки
-            String savedLangCode = playerLanguages.get(playerUUID);
-            return (savedLangCode != null && !savedLangCode.isEmpty()) ? savedLangCode : "en";
+            if (broadcast.getMessageType() == messageType)
+                return true;
         }
+        return false;
+    }
+
+    // Планирует фоновую подготовку следующей рассылки типа (если конвейер включен)
+    private static void schedulePreparation(MessageType messageType)
+    {
+        long prepareTick = messageType.getNextFireTick() - Config.prepareAheadTicks;
+        // Конвейер выключен или до отправки слишком мало времени - подготовим на месте
+        if (Config.prepareAheadTicks <= 0 || prepareTick <= currentTick)
+            return;
+
+        prepareQueue.add(messageType, prepareTick);
+    }
+
+    /**
+     * Получает id языка игрока, автоматически обновляя его периодически
+     * Проверяет текущий язык игрока раз в LANGUAGE_CHECK_INTERVAL_MS миллисекунд
+     */
+    private static int getPlayerLanguageId(NotifyRecipient player)
+    {
+        return getPlayerLanguageId(player.getUUID(), player.getLanguage(), System.currentTimeMillis());
     }
     
     /**
-     * Обновляет сохраненный язык игрока и возвращает код языка
+     * Ядро getPlayerLanguageId без зависимости от получателя (используется и бенчмарками)
      */
-    private static String updatePlayerLanguage(ServerPlayer player)
+    static int getPlayerLanguageId(UUID playerUUID, String currentLang, long currentTime)
     {
-        UUID playerUUID = player.getUUID();
-        String playerLang = player.getLanguage();
+        // Язык проверялся недавно - используем кэшированный id без проверки (один поиск в хранилище)
+        int cachedId = playerLanguages.getFreshLanguageId(playerUUID, currentTime, LANGUAGE_CHECK_INTERVAL_MS);
+        if (cachedId != PlayerLanguageStore.ABSENT)
+        {
+            NotifyMetrics.LANGUAGE_CACHE_HITS.increment();
+            return cachedId;
+        }
+        NotifyMetrics.LANGUAGE_CACHE_MISSES.increment();
+        
+        // Если язык не определен, используем кэшированный или "en"
+        if (currentLang == null || currentLang.isEmpty())
+        {
+            int savedId = playerLanguages.getLanguageId(playerUUID);
+            int langId = savedId != PlayerLanguageStore.ABSENT ? savedId : Config.locales.getDefaultId();
+            playerLanguages.put(playerUUID, langId, currentTime);
+            return langId;
+        }
         
-        String langCode = "en"; // По умолчанию английский
+        int langId = Config.locales.resolve(currentLang);
         
-        if (playerLang != null && !playerLang.isEmpty())
+        // Сохраняем язык и время проверки; если язык изменился - пишем в лог
+        int savedId = playerLanguages.put(playerUUID, langId, currentTime);
+        if (savedId != langId)
         {
-            // Обработка различных форматов языковых кодов:
-            // "ru_RU" -> "ru", "en_US" -> "en", "ru" -> "ru", "en" -> "en"
-            String normalized = playerLang.trim().toLowerCase();
-            
-            // Если есть подчеркивание или дефис, берем первую часть
-            int separatorIndex = Math.max(normalized.indexOf('_'), normalized.indexOf('-'));
-            if (separatorIndex > 0)
-            {
-                langCode = normalized.substring(0, separatorIndex);
-            }
-            else if (normalized.length() >= 2)
-            {
-                // Если это короткий код (2+ символа), берем первые 2
-                langCode = normalized.substring(0, 2);
-            }
-            
-            // Проверяем, что язык поддерживается в конфиге, иначе fallback на "en"
-            if (!Config.supportedLanguages.contains(langCode))
-            {
-                ExampleMod.LOGGER.debug("[Notify] Language '{}' (from '{}') not supported in config, using 'en' for player {}", 
-                                       langCode, playerLang, player.getName().getString());
-                langCode = "en";
-            }
+            ExampleMod.LOGGER.debug("[Notify] Language auto-updated for player {}: '{}' -> '{}' (original: '{}')", 
+                                   playerUUID, playerLanguages.getLanguageCode(savedId),
+                                   playerLanguages.getLanguageCode(langId), currentLang);
         }
         
+        return langId;
+    }
+    
+    /**
+     * Обновляет сохраненный язык игрока и возвращает его id
+     */
+    private static int updatePlayerLanguage(ServerPlayer player)
+    {
+        String playerLang = player.getLanguage();
+        
+        // "pt_BR" -> pt_br (если настроен) -> pt -> en; строки локалей кэшируются в LocaleResolver
+        int langId = Config.locales.resolve(playerLang);
+        
         // Сохраняем для будущего использования
-        playerLanguages.put(playerUUID, langCode);
+        playerLanguages.put(player.getUUID(), langId, System.currentTimeMillis());
         ExampleMod.LOGGER.debug("[Notify] Language '{}' detected for player {} (original: '{}')", 
-                               langCode, player.getName().getString(), playerLang);
+                               playerLanguages.getLanguageCode(langId), player.getName().getString(), playerLang);
         
-        return langCode;
+        return langId;
     }
     
     /**
@@ -205,74 +523,151 @@ public class MessageScheduler
     }
 
     private static void sendMessageToAllPlayers(MinecraftServer server, MessageType messageType)
+    {
+        long startNanos = System.nanoTime();
+        messageType.getBroadcastCounter().increment();
+        
+        // Используем рассылку, подготовленную заранее; если она не успела - готовим на месте
+        PreparedBroadcast broadcast = BroadcastPipeline.take(messageType, messageType.getNextFireTick(), currentTick);
+        if (broadcast == null)
+        {
+            broadcast = prepareBroadcast(messageType, messageType.getNextFireTick(), audienceFor(messageType),
+                                         serverValues(server, messageType));
+        }
+        
+        // Первая порция - на этом тике, остаток доставляется на следующих
+        if (!broadcast.deliver(throttle.deliveryBatch(messageType.getDeliveryBatch()), messageType.getDeliveryBudgetNanos()))
+        {
+            inFlight.add(broadcast);
+        }
+        
+        NotifyMetrics.BROADCAST_NANOS.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Разовая отправка вне расписания (NotifyApi): доставка идет так же, как у обычной рассылки, порциями
+     */
+    static void announce(MinecraftServer server, MessageType messageType)
+    {
+        long startNanos = System.nanoTime();
+        messageType.getBroadcastCounter().increment();
+        
+        PreparedBroadcast broadcast = prepareBroadcast(messageType, currentTick, audienceFor(messageType),
+                                                       serverValues(server, messageType));
+        if (!broadcast.deliver(throttle.deliveryBatch(messageType.getDeliveryBatch()), messageType.getDeliveryBudgetNanos()))
+        {
+            inFlight.add(broadcast);
+        }
+        
+        NotifyMetrics.BROADCAST_NANOS.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Тип из конфига по имени без учета регистра или null
+     */
+    static MessageType getMessageType(String name)
+    {
+        for (MessageType messageType : messageTypes)
+        {
+            if (messageType.getName().equalsIgnoreCase(name))
+                return messageType;
+        }
+        return null;
+    }
+
+    // Серверные переменные шаблонов ({online}, {tps}, ...) - один раз на рассылку и только для типов с шаблонами
+    private static String[] serverValues(MinecraftServer server, MessageType messageType)
+    {
+        if (!messageType.isTemplated())
+            return null;
+
+        serverState.sample(server, currentTick);
+        return MessageTemplate.serverValues(serverState);
+    }
+
+    // Получатели типа: сегмент из индекса аудитории (без проверки каждого игрока); новый список - снимок
+    private static List<NotifyRecipient> audienceFor(MessageType messageType)
+    {
+        return audienceIndex.resolve(messageType.getAudience());
+    }
+
+    /**
+     * Готовит рассылку: определяет языки игроков, выбирает сообщение на каждую строку языка
+     * и группирует аудиторию. Безопасно вызывать из фонового потока при условии, что players - снимок списка.
+     * serverValues - значения серверных переменных шаблонов, снятые на основном потоке (null - у типа нет шаблонов)
+     */
+    static PreparedBroadcast prepareBroadcast(MessageType messageType, long fireTick, List<NotifyRecipient> players,
+                                              String[] serverValues)
     {
         // Логируем начало проверки языков игроков
-        ExampleMod.LOGGER.info("[Notify] Проверка языков игроков для отправки сообщения типа '{}'", messageType.getName());
+        ExampleMod.LOGGER.debug("[Notify] Проверка языков игроков для отправки сообщения типа '{}'", messageType.getName());
+        
+        boolean shared = "SHARED".equalsIgnoreCase(Config.broadcastMode);
+        boolean checkMutes = !MuteStore.isEmpty();
+        int muteId = messageType.getMuteId();
+        PreparedBroadcast broadcast = new PreparedBroadcast(messageType, fireTick, serverValues);
         
-        // Отправляем каждому игроку персонализированное сообщение на его языке
-        for (ServerPlayer player : server.getPlayerList().getPlayers())
+        for (NotifyRecipient player : players)
         {
-            // Получаем код языка игрока (используя сохраненное значение)
-            String langCode = getPlayerLanguageCode(player);
+            // Игроки со скрытым чатом не принимают системные сообщения (как в ServerPlayer.sendSystemMessage)
+            if (shared && player.isChatHidden())
+                continue;
+            // Игрок отключил этот тип (/notify mute)
+            if (checkMutes && MuteStore.isMuted(player.getUUID(), muteId))
+                continue;
             
-            // Получаем сообщение для языка игрока
-            String message = messageType.getRandomMessageForLang(langCode);
-            Component component;
-            
-            if (messageType.isClickable())
+            // Получаем id языка игрока (используя сохраненное значение)
+            int row = messageType.getLanguageRow(getPlayerLanguageId(player));
+            if (messageType.isShuffled())
             {
-                // Получаем clickValue (общий для всех языков)
-                String clickValue = messageType.getClickValueForLastMessage();
-                
-                if (!clickValue.isEmpty())
-                {
-                    String clickType = messageType.getClickType().toUpperCase();
-                    
-                    if (clickType.equals("URL"))
-                    {
-                        // Создаем кликабельное сообщение с URL
-                        component = Component.literal(message)
-                                .withStyle(style -> style
-                                        .withClickEvent(new net.minecraft.network.chat.ClickEvent(
-                                                net.minecraft.network.chat.ClickEvent.Action.OPEN_URL,
-                                                clickValue))
-                                        .withHoverEvent(new net.minecraft.network.chat.HoverEvent(
-                                                net.minecraft.network.chat.HoverEvent.Action.SHOW_TEXT,
-                                                Component.literal("§eClick to open: §b" + clickValue))));
-                    }
-                    else // COMMAND
-                    {
-                        // Создаем кликабельное сообщение с командой
-                        component = Component.literal(message)
-                                .withStyle(style -> style
-                                        .withClickEvent(new net.minecraft.network.chat.ClickEvent(
-                                                net.minecraft.network.chat.ClickEvent.Action.RUN_COMMAND,
-                                                clickValue))
-                                        .withHoverEvent(new net.minecraft.network.chat.HoverEvent(
-                                                net.minecraft.network.chat.HoverEvent.Action.SHOW_TEXT,
-                                                Component.literal("§eClick to run: §b" + clickValue))));
-                    }
-                }
-                else
-                {
-                    // Если clickValue пустой, создаем обычное сообщение
-                    component = Component.literal(message);
-                }
+                // Ротация без повторов - сообщение выбирается для каждого игрока
+                broadcast.add(row, player, playerLanguages.getRotationKey(player.getUUID()));
             }
             else
             {
-                // Обычное сообщение
-                component = Component.literal(message);
+                broadcast.add(row, player);
             }
-            
-            player.sendSystemMessage(component);
         }
+        
+        // Один раз кодируем пакет на каждую группу языка
+        if (shared)
+        {
+            broadcast.encodeShared();
+        }
+        
+        return broadcast;
+    }
+
+    /**
+     * Ближайшие count отправок по текущему расписанию (для /notify schedule)
+     */
+    public static List<PhasePlanner.Fire> previewSchedule(int count)
+    {
+        return PhasePlanner.preview(messageTypes, count);
+    }
+
+    public static PhasePlanner getPhasePlanner()
+    {
+        return phasePlanner;
+    }
+
+    public static TickThrottle getThrottle()
+    {
+        return throttle;
+    }
+
+    public static long getCurrentTick()
+    {
+        return currentTick;
     }
 
     public static void reset()
     {
         initialized = false;
         messageTypes.clear();
+        schedule.clear();
+        prepareQueue.clear();
+        BroadcastPipeline.clear();
         // Не очищаем playerLanguages - языки игроков не меняются при перезагрузке конфига
         // playerLanguages.clear();
     }
@@ -282,9 +677,7 @@ public class MessageScheduler
      */
     public static void resetLanguages()
     {
-        int clearedCount = playerLanguages.size();
-        playerLanguages.clear();
-        lastLanguageCheck.clear(); // Очищаем и кэш времени проверок
+        int clearedCount = playerLanguages.clear();
         ExampleMod.LOGGER.info("[Notify] Cleared language cache for {} players", clearedCount);
     }
     
@@ -298,6 +691,13 @@ public class MessageScheduler
         {
             // Используем публичный метод для обновления языка
             updatePlayerLanguagePublic(player);
+            audienceIndex.add(player, currentTick, Config.newPlayerMinutes * 1200);
+            MuteStore.load(player.getUUID());
+            // Первый игрок с языком - загружаем его файл сообщений (и файлы языков его цепочки fallback)
+            for (int id : Config.locales.getFallbackChain(playerLanguages.getLanguageId(player.getUUID())))
+            {
+                LanguageCorpus.request(player.getServer(), Config.locales.getCode(id));
+            }
         }
     }
     
@@ -311,6 +711,8 @@ public class MessageScheduler
         {
             // Обновляем язык после респавна (после смерти)
             updatePlayerLanguagePublic(player);
+            // После респавна это новый объект ServerPlayer (и, возможно, другое измерение)
+            audienceIndex.add(player, currentTick, Config.newPlayerMinutes * 1200);
         }
     }
     
@@ -322,9 +724,62 @@ public class MessageScheduler
     {
         if (event.getEntity() instanceof ServerPlayer player)
         {
-            UUID playerUUID = player.getUUID();
-            playerLanguages.remove(playerUUID);
-            lastLanguageCheck.remove(playerUUID);
+            playerLanguages.remove(player.getUUID());
+            audienceIndex.remove(player.getUUID());
+            MuteStore.unload(player.getUUID());
+        }
+    }
+    
+    /**
+     * Смена измерения - переносим игрока в сегмент нового измерения
+     */
+    @SubscribeEvent
+    public static void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event)
+    {
+        if (event.getEntity() instanceof ServerPlayer player)
+        {
+            audienceIndex.updateDimension(player);
+        }
+    }
+    
+    /**
+     * Изменение уровня прав (/op, /deop)
+     */
+    @SubscribeEvent
+    public static void onPermissionsChanged(PermissionsChangedEvent event)
+    {
+        if (event.getEntity() instanceof ServerPlayer player)
+        {
+            audienceIndex.updatePermission(player, event.getNewLevel());
+        }
+    }
+    
+    /**
+     * Остановка сервера - завершаем фоновый поток подготовки рассылок
+     */
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event)
+    {
+        BroadcastPipeline.shutdown();
+        MetricsExporter.stop();
+        DeliveryAudit.stop();
+        MuteStore.shutdown();
+        ConfigWatcher.shutdown();
+        ConfigEditor.shutdown();
+        NotifyApi.clear();
+        LanguageCorpus.shutdown();
+        audienceIndex.clear();
+        for (PreparedBroadcast broadcast : inFlight)
+        {
+            broadcast.release();
         }
+        inFlight.clear();
+        // Сохраняем расписание; следующий запуск (в том числе другого мира в одиночной игре) начнет с тика 0
+        ScheduleState.close();
+        reset();
+        currentTick = 0;
+        nextLanguageCheckTick = 0;
+        nextCatchUpTick = 0;
+        throttle.reset();
     }
 }
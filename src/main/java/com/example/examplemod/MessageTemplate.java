@@ -0,0 +1,170 @@
+package com.example.examplemod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Шаблон сообщения с подстановками ({online}, {player}, ...), скомпилированный при загрузке конфига
+ * в массивы литералов и переменных. Серверные переменные подставляются один раз на рассылку (bindServer),
+ * переменные игрока - для каждого получателя (resolve). Неизвестные {имена} остаются в тексте как есть
+ */
+public final class MessageTemplate
+{
+    // Серверные переменные - индексы в массиве serverValues
+    public static final int ONLINE = 0;
+    public static final int MAX_PLAYERS = 1;
+    public static final int TPS = 2;
+    public static final int MSPT = 3;
+    private static final int SERVER_VARIABLES = 4;
+    // Переменные игрока
+    public static final int PLAYER = 4;
+    public static final int WORLD = 5;
+
+    private static final Map<String, Integer> VARIABLES = Map.of(
+            "online", ONLINE,
+            "maxplayers", MAX_PLAYERS,
+            "tps", TPS,
+            "mspt", MSPT,
+            "player", PLAYER,
+            "world", WORLD);
+
+    // literals.length == variables.length + 1: literal[0] var[0] literal[1] ... literal[n]
+    private final String[] literals;
+    private final int[] variables;
+    private final boolean playerVariables;
+
+    private MessageTemplate(String[] literals, int[] variables)
+    {
+        this.literals = literals;
+        this.variables = variables;
+        boolean player = false;
+        for (int variable : variables)
+        {
+            player |= variable >= SERVER_VARIABLES;
+        }
+        this.playerVariables = player;
+    }
+
+    /**
+     * Компилирует текст сообщения или возвращает null, если в нем нет известных переменных
+     */
+    public static MessageTemplate compile(String text)
+    {
+        List<String> literals = new ArrayList<>();
+        List<Integer> variables = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < text.length())
+        {
+            int open = text.indexOf('{', position);
+            int close = open >= 0 ? text.indexOf('}', open + 1) : -1;
+            if (close < 0)
+                break;
+
+            Integer variable = VARIABLES.get(text.substring(open + 1, close).toLowerCase(Locale.ROOT));
+            if (variable == null)
+            {
+                // Не переменная - оставляем скобку и ищем дальше
+                literal.append(text, position, open + 1);
+                position = open + 1;
+                continue;
+            }
+
+            literal.append(text, position, open);
+            literals.add(literal.toString());
+            literal.setLength(0);
+            variables.add(variable);
+            position = close + 1;
+        }
+
+        if (variables.isEmpty())
+            return null;
+
+        literal.append(text, position, text.length());
+        literals.add(literal.toString());
+        return new MessageTemplate(literals.toArray(new String[0]), variables.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Шаблон текста без переменных (участок разметки без подстановок)
+     */
+    static MessageTemplate literal(String text)
+    {
+        return new MessageTemplate(new String[] { text }, new int[0]);
+    }
+
+    /**
+     * Значения серверных переменных для одной рассылки
+     */
+    public static String[] serverValues(ServerSnapshot snapshot)
+    {
+        String[] values = new String[SERVER_VARIABLES];
+        values[ONLINE] = Integer.toString(snapshot.getOnline());
+        values[MAX_PLAYERS] = Integer.toString(snapshot.getMaxPlayers());
+        values[TPS] = String.format(Locale.ROOT, "%.1f", snapshot.getTps());
+        values[MSPT] = String.format(Locale.ROOT, "%.1f", snapshot.getMspt());
+        return values;
+    }
+
+    public boolean hasPlayerVariables()
+    {
+        return playerVariables;
+    }
+
+    /**
+     * Подставляет серверные переменные. Результат содержит только переменные игрока
+     * (или ни одной - тогда текст берется через getText)
+     */
+    public MessageTemplate bindServer(String[] serverValues)
+    {
+        List<String> boundLiterals = new ArrayList<>();
+        List<Integer> boundVariables = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(literals[0]);
+        for (int i = 0; i < variables.length; i++)
+        {
+            if (variables[i] < SERVER_VARIABLES)
+            {
+                literal.append(serverValues != null ? serverValues[variables[i]] : "");
+            }
+            else
+            {
+                boundLiterals.add(literal.toString());
+                literal.setLength(0);
+                boundVariables.add(variables[i]);
+            }
+            literal.append(literals[i + 1]);
+        }
+        boundLiterals.add(literal.toString());
+        return new MessageTemplate(boundLiterals.toArray(new String[0]), boundVariables.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Текст шаблона без переменных (после bindServer)
+     */
+    public String getText()
+    {
+        return literals[0];
+    }
+
+    /**
+     * Текст для получателя: подставляет переменные игрока (серверные должны быть уже подставлены)
+     */
+    public String resolve(NotifyRecipient player)
+    {
+        StringBuilder text = new StringBuilder(literals[0].length() + 32 * variables.length);
+        text.append(literals[0]);
+        for (int i = 0; i < variables.length; i++)
+        {
+            switch (variables[i])
+            {
+                case PLAYER -> text.append(player.getPlayerName());
+                case WORLD -> text.append(player.getWorldName());
+                default -> { }
+            }
+            text.append(literals[i + 1]);
+        }
+        return text.toString();
+    }
+}
@@ -1,69 +1,307 @@
 package com.example.examplemod;
 
+import net.minecraft.network.chat.ClickEvent;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.HoverEvent;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
 
 public class MessageType
 {
+    // lastSentTick типа, который еще не отправлялся (восстановленный из ScheduleState тик может быть отрицательным)
+    public static final long NEVER_SENT = Long.MIN_VALUE;
+    private static final long MILLIS_PER_TICK = 50L;
+    // За сколько тиков до отправки по часам тип просыпается, чтобы уточнить ее тик (минута)
+    private static final long CALENDAR_REAIM_TICKS = 1200L;
+
     private final String name;
+    private final int muteId; // Бит типа в MuteStore (отключение игроками)
     private final Map<String, List<String>> messagesByLang;
     private final List<String> clickValues; // Общие для всех языков
     private final int intervalSeconds;
     private final boolean clickable;
     private final String clickType;
-    private long lastSentTime;
-    private final Random random;
-    private int lastMessageIndex; // Индекс последнего выбранного сообщения
+    private final long intervalTicks;
+    private long lastSentTick;  // Тик сервера последней отправки (NEVER_SENT - еще не отправлялось)
+    private long nextFireTick;  // Тик сервера следующей отправки (ключ в очереди планировщика)
+    private long phaseTicks = -1; // Фаза от PhasePlanner: отправки на тиках phaseTicks + k * intervalTicks (-1 - без выравнивания)
+    // Расписание по часам (null - отправка по интервалу): время следующей отправки и тик, на котором
+    // nextFireTick последний раз пересчитан по часам (тики отстают от часов, пока сервер лагает)
+    private CronSchedule calendar;
+    private long calendarFireMillis = Long.MAX_VALUE;
+    private long calendarAimTick;
+    private ShuffleRotation rotation;   // Ротация без повторов по игрокам (null - случайный выбор с весами)
+    private int deliveryBatch;          // Игроков за тик при растянутой доставке (0 - всем сразу)
+    private long deliveryBudgetNanos;   // Бюджет доставки на тик (0 - без ограничения)
+    private final LongAdder broadcastCounter; // Счетчик рассылок типа в NotifyMetrics
+    private NotifyCondition condition = NotifyCondition.ALWAYS; // Условие отправки из конфига
+    private AudienceFilter audience = AudienceFilter.ALL; // Сегмент получателей
+    private int priority = TickThrottle.PRIORITY_NORMAL;  // Приоритет при лагах сервера
+    private Config.MessageConfig config;      // Секция конфига, из которой создан тип (для сравнения при перезагрузке)
+
+    // Скомпилированные таблицы [id языка][индекс сообщения] с уже разрешенным fallback.
+    // Последняя строка - fallback для языков, которых нет в Config.supportedLanguages
+    private final String[][] textsByLang;
+    private final Component[][] componentsByLang;
+    // Шаблоны с переменными [id языка][индекс сообщения]: дерево Component с ячейками подстановок;
+    // null - обычный текст без подстановок
+    private final ComponentTemplate[][] templatesByLang;
+    private boolean templated; // Есть хотя бы одно сообщение с переменными
+    // Таблицы взвешенного выбора по строкам языка (общие для строк с одинаковым списком сообщений)
+    private final AliasTable[] selectionByLang;
 
     public MessageType(String name, Map<String, List<String>> messagesByLang, List<String> clickValues,
                       int intervalSeconds, boolean clickable, String clickType)
     {
         this.name = name;
+        this.muteId = MuteStore.typeId(name);
         this.messagesByLang = messagesByLang;
         this.clickValues = clickValues;
         this.intervalSeconds = intervalSeconds;
         this.clickable = clickable;
         this.clickType = clickType;
-        this.lastSentTime = 0;
-        this.random = new Random();
-        this.lastMessageIndex = 0;
+        // Интервал в тиках сервера (20 тиков в секунду), не меньше одного тика
+        this.intervalTicks = Math.max(1L, intervalSeconds * 20L);
+        this.lastSentTick = NEVER_SENT;
+        this.nextFireTick = 0;
+        this.broadcastCounter = NotifyMetrics.broadcastCounter(name);
+
+        List<String> languages = Config.supportedLanguages;
+        this.textsByLang = new String[languages.size() + 1][];
+        this.componentsByLang = new Component[languages.size() + 1][];
+        this.templatesByLang = new ComponentTemplate[languages.size() + 1][];
+        this.selectionByLang = new AliasTable[languages.size() + 1];
+        compile(languages);
+        compileSelection(new double[0]);
     }
 
-    public String getName()
+    public MessageType(String name, Config.MessageConfig config)
     {
-        return name;
+        this(name, config.messagesByLang, config.clickValues, config.intervalSeconds, config.clickable, config.clickType);
+        this.deliveryBatch = Math.max(0, config.deliveryBatch);
+        this.deliveryBudgetNanos = Math.max(0L, config.deliveryBudgetNanos);
+        this.condition = config.condition != null ? config.condition : NotifyCondition.ALWAYS;
+        this.audience = config.audience != null ? config.audience : AudienceFilter.ALL;
+        this.priority = config.priority;
+        this.calendar = config.schedule;
+        this.rotation = "SHUFFLE".equalsIgnoreCase(config.rotation) ? new ShuffleRotation() : null;
+        this.config = config;
+        if (config.weights.length > 0)
+            compileSelection(config.weights);
     }
 
-    // Получить случайное сообщение для указанного языка
-    public String getRandomMessageForLang(String lang)
+    /**
+     * Компилирует таблицы сообщений один раз при создании типа (initialize()/reload).
+     * Языки, которые разрешаются в один и тот же список, делят общие экземпляры Component
+     */
+    private void compile(List<String> languages)
     {
-        List<String> messages = messagesByLang.get(lang);
-        
-        // Fallback на английский если язык не найден
-        if (messages == null || messages.isEmpty())
+        LocaleResolver locales = Config.locales;
+        Map<List<String>, Component[]> compiled = new IdentityHashMap<>();
+        Map<List<String>, ComponentTemplate[]> compiledTemplates = new IdentityHashMap<>();
+        for (int row = 0; row < textsByLang.length; row++)
         {
-            messages = messagesByLang.get("en");
+            int langId = row < languages.size() ? row : LocaleResolver.UNSUPPORTED;
+            List<String> messages = resolveMessages(locales.getFallbackChain(langId), languages);
+            if (messages == null)
+            {
+                textsByLang[row] = new String[] { "§7[" + name + "] §fNo messages configured" };
+                componentsByLang[row] = new Component[] { buildComponent(textsByLang[row][0], 0) };
+                templatesByLang[row] = new ComponentTemplate[1];
+                continue;
+            }
+
+            textsByLang[row] = messages.toArray(new String[0]);
+            Component[] components = compiled.get(messages);
+            ComponentTemplate[] templates = compiledTemplates.get(messages);
+            if (components == null)
+            {
+                components = new Component[messages.size()];
+                templates = new ComponentTemplate[messages.size()];
+                for (int i = 0; i < components.length; i++)
+                {
+                    components[i] = buildComponent(messages.get(i), i);
+                    templates[i] = buildTemplate(messages.get(i), i);
+                    templated |= templates[i] != null;
+                }
+                compiled.put(messages, components);
+                compiledTemplates.put(messages, templates);
+            }
+            componentsByLang[row] = components;
+            templatesByLang[row] = templates;
         }
-        
-        // Fallback на первый доступный язык
-        if (messages == null || messages.isEmpty())
+    }
+
+    // Таблицы алиасов по строкам; веса задаются по индексу сообщения и общие для всех языков,
+    // поэтому таблица зависит только от числа сообщений в строке
+    private void compileSelection(double[] weights)
+    {
+        Map<Integer, AliasTable> compiled = new HashMap<>();
+        for (int row = 0; row < textsByLang.length; row++)
         {
-            messages = messagesByLang.values().stream().findFirst().orElse(null);
+            selectionByLang[row] = compiled.computeIfAbsent(textsByLang[row].length, size -> new AliasTable(weights, size));
         }
-        
-        if (messages == null || messages.isEmpty())
+    }
+
+    // Цепочка fallback: язык -> базовый язык (pt_br -> pt) -> английский -> первый доступный язык из конфига
+    private List<String> resolveMessages(int[] chain, List<String> languages)
+    {
+        for (int langId : chain)
         {
-            lastMessageIndex = 0;
-            return "§7[" + name + "] §fNo messages configured";
+            List<String> messages = messagesByLang.get(languages.get(langId));
+            if (messages != null && !messages.isEmpty())
+                return messages;
         }
-        
-        lastMessageIndex = random.nextInt(messages.size());
-        return messages.get(lastMessageIndex);
+
+        for (String candidate : languages)
+        {
+            List<String> messages = messagesByLang.get(candidate);
+            if (messages != null && !messages.isEmpty())
+                return messages;
+        }
+        return null;
+    }
+
+    // Создает готовый Component со стилем клика/наведения для сообщения с указанным индексом.
+    // Текст с разметкой компилируется в дерево MarkupCompiler; клик из clickValues применяется
+    // ко всей строке, только если в разметке нет своих <click>
+    private Component buildComponent(String message, int index)
+    {
+        ClickEvent click = lineClick(index);
+        HoverEvent hover = click != null ? lineHover(index) : null;
+        Component markup = MarkupCompiler.compile(message, click, hover);
+        if (markup != null)
+            return markup;
+
+        if (click == null)
+            return Component.literal(message);
+
+        ClickEvent lineClick = click;
+        HoverEvent lineHover = hover;
+        return Component.literal(message)
+                .withStyle(style -> style.withClickEvent(lineClick).withHoverEvent(lineHover));
+    }
+
+    // Шаблон с переменными: разметка и клик компилируются сейчас, при отправке подставляются только значения
+    private ComponentTemplate buildTemplate(String message, int index)
+    {
+        ClickEvent click = lineClick(index);
+        return ComponentTemplate.compile(message, click, click != null ? lineHover(index) : null);
     }
 
-    // Получить clickValue для последнего сообщения
-    public String getClickValueForLastMessage()
+    // Клик всей строки из clickValues (URL или команда) или null
+    private ClickEvent lineClick(int index)
+    {
+        String clickValue = clickable ? getClickValue(index) : "";
+        if (clickValue.isEmpty())
+            return null;
+        boolean url = clickType.equalsIgnoreCase("URL");
+        return new ClickEvent(url ? ClickEvent.Action.OPEN_URL : ClickEvent.Action.RUN_COMMAND, clickValue);
+    }
+
+    private HoverEvent lineHover(int index)
+    {
+        boolean url = clickType.equalsIgnoreCase("URL");
+        return new HoverEvent(HoverEvent.Action.SHOW_TEXT,
+                Component.literal((url ? "§eClick to open: §b" : "§eClick to run: §b") + getClickValue(index)));
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Возвращает строку таблицы для id языка (индекс в Config.supportedLanguages, -1 если язык не поддерживается)
+     */
+    public int getLanguageRow(int langId)
+    {
+        return (langId >= 0 && langId < componentsByLang.length - 1) ? langId : componentsByLang.length - 1;
+    }
+
+    public int getLanguageRowCount()
+    {
+        return componentsByLang.length;
+    }
+
+    public int getMessageCount(int row)
+    {
+        return componentsByLang[row].length;
+    }
+
+    // Выбирает случайный индекс сообщения для строки языка с учетом весов (O(1), из любого потока)
+    public int pickMessageIndex(int row)
+    {
+        return selectionByLang[row].sample();
+    }
+
+    /**
+     * Следующий индекс сообщения для игрока в режиме SHUFFLE (без повторов, пока не показаны все)
+     */
+    public int nextMessageIndexFor(int row, long rotationKey)
+    {
+        if (rotation == null || rotationKey < 0)
+            return pickMessageIndex(row);
+        return rotation.next(rotationKey, componentsByLang[row].length);
+    }
+
+    public int getPriority()
+    {
+        return priority;
+    }
+
+    public int getMuteId()
+    {
+        return muteId;
+    }
+
+    public AudienceFilter getAudience()
+    {
+        return audience;
+    }
+
+    public boolean isShuffled()
+    {
+        return rotation != null;
+    }
+
+    // Готовый общий Component для строки языка и индекса сообщения
+    public Component getComponent(int row, int index)
+    {
+        return componentsByLang[row][index];
+    }
+
+    // Шаблон сообщения или null, если в тексте нет переменных (тогда используется готовый getComponent)
+    public ComponentTemplate getTemplate(int row, int index)
+    {
+        return templatesByLang[row][index];
+    }
+
+    public boolean isTemplated()
+    {
+        return templated;
+    }
+
+    // Получить случайное сообщение для указанного языка
+    public String getRandomMessageForLang(String lang)
+    {
+        int row = getLanguageRow(Config.getLanguageId(lang));
+        return textsByLang[row][pickMessageIndex(row)];
+    }
+
+    // Текст сообщения строки языка по индексу
+    public String getMessageText(int row, int index)
+    {
+        return textsByLang[row][index];
+    }
+
+    // clickValue для сообщения с указанным индексом
+    public String getClickValue(int messageIndex)
     {
         if (clickValues == null || clickValues.isEmpty())
         {
@@ -71,7 +309,7 @@ public class MessageType
         }
         
         // Если индекс выходит за пределы списка clickValues, используем последний элемент
-        int index = Math.min(lastMessageIndex, clickValues.size() - 1);
+        int index = Math.min(messageIndex, clickValues.size() - 1);
         return clickValues.get(index);
     }
 
@@ -90,18 +328,230 @@ public class MessageType
         return clickType;
     }
 
-    public long getLastSentTime()
+    public LongAdder getBroadcastCounter()
+    {
+        return broadcastCounter;
+    }
+
+    public int getDeliveryBatch()
+    {
+        return deliveryBatch;
+    }
+
+    public long getDeliveryBudgetNanos()
+    {
+        return deliveryBudgetNanos;
+    }
+
+    public long getIntervalTicks()
+    {
+        return intervalTicks;
+    }
+
+    public long getLastSentTick()
+    {
+        return lastSentTick;
+    }
+
+    public long getNextFireTick()
+    {
+        return nextFireTick;
+    }
+
+    public void setNextFireTick(long tick)
+    {
+        this.nextFireTick = tick;
+    }
+
+    public boolean hasCondition()
+    {
+        return condition != NotifyCondition.ALWAYS;
+    }
+
+    /**
+     * Проверяет условие отправки по снимку состояния сервера текущего тика
+     */
+    public boolean testCondition(ServerSnapshot snapshot)
+    {
+        return condition.test(snapshot);
+    }
+
+    /**
+     * Пропускает отправку (условие не выполнено) - следующая попытка через интервал
+     */
+    public void skip(long tick)
+    {
+        if (calendar != null)
+            aimCalendar(tick, calendar.next(Math.max(calendarFireMillis, System.currentTimeMillis())));
+        else
+            this.nextFireTick = nextAfter(tick);
+    }
+
+    public boolean isCalendar()
+    {
+        return calendar != null;
+    }
+
+    /**
+     * Тик, на котором планировщику нужно проверить тип. Для расписания по часам далекая отправка
+     * сначала будит тип за CALENDAR_REAIM_TICKS до себя, чтобы пересчитать тик по часам
+     */
+    public long getWakeTick()
+    {
+        if (calendar == null || nextFireTick - calendarAimTick <= CALENDAR_REAIM_TICKS)
+            return nextFireTick;
+        return nextFireTick - CALENDAR_REAIM_TICKS;
+    }
+
+    /**
+     * Пересчитывает тик отправки по часам. Возвращает true, если время отправки еще не наступило
+     */
+    public boolean reaimCalendar(long tick)
+    {
+        if (calendar == null || calendarFireMillis <= System.currentTimeMillis())
+            return false;
+        aimCalendar(tick, calendarFireMillis);
+        return true;
+    }
+
+    // Отправка в fireMillis по часам -> тик сервера (не раньше следующего тика); просроченная - на этом тике
+    private void aimCalendar(long tick, long fireMillis)
+    {
+        this.calendarFireMillis = fireMillis;
+        this.calendarAimTick = tick;
+        if (fireMillis == Long.MAX_VALUE)
+        {
+            this.nextFireTick = Long.MAX_VALUE;
+            return;
+        }
+        long remaining = fireMillis - System.currentTimeMillis();
+        this.nextFireTick = remaining <= 0 ? tick : tick + (remaining + MILLIS_PER_TICK - 1) / MILLIS_PER_TICK;
+    }
+
+    /**
+     * Ближайшие count тиков отправки (для /notify schedule), начиная со следующей
+     */
+    public long[] upcomingTicks(int count)
+    {
+        long[] ticks = new long[count];
+        long millis = calendarFireMillis;
+        for (int i = 0; i < count; i++)
+        {
+            if (calendar == null)
+            {
+                ticks[i] = nextFireTick + i * intervalTicks;
+                continue;
+            }
+            if (millis == Long.MAX_VALUE)
+                return Arrays.copyOf(ticks, i);
+            ticks[i] = nextFireTick + (millis - calendarFireMillis) / MILLIS_PER_TICK;
+            millis = calendar.next(millis);
+        }
+        return ticks;
+    }
+
+    public long getPhaseTicks()
+    {
+        return phaseTicks;
+    }
+
+    public void setPhase(long phaseTicks)
+    {
+        this.phaseTicks = phaseTicks;
+    }
+
+    /**
+     * Ближайший тик не раньше earliest, попадающий в фазу типа
+     */
+    public long alignToPhase(long earliest)
+    {
+        if (phaseTicks < 0)
+            return earliest;
+        long remainder = Math.floorMod(earliest - phaseTicks, intervalTicks);
+        return remainder == 0 ? earliest : earliest + intervalTicks - remainder;
+    }
+
+    // Следующая отправка после отправки (или пропуска) на тике tick. С фазой - не раньше чем через полинтервала
+    // ближайший тик фазы, так что отправка с опозданием возвращается на свое место в плане
+    private long nextAfter(long tick)
+    {
+        return phaseTicks < 0 ? tick + intervalTicks : alignToPhase(tick + (intervalTicks + 1) / 2);
+    }
+
+    public Config.MessageConfig getConfig()
+    {
+        return config;
+    }
+
+    /**
+     * Переносит таймер со старой версии типа (перезагрузка конфига): следующая отправка
+     * отсчитывается от последней с новым интервалом, а не начинается заново. Ротация игроков тоже сохраняется
+     */
+    public void inheritSchedule(MessageType previous, long tick)
+    {
+        if (rotation != null && previous.rotation != null)
+            rotation.copyFrom(previous.rotation);
+        this.lastSentTick = previous.lastSentTick;
+        if (calendar != null)
+        {
+            // То же расписание - ждущая (в том числе отложенная при лагах) отправка сохраняется
+            boolean same = previous.calendar != null && previous.calendar.getExpression().equals(calendar.getExpression());
+            aimCalendar(tick, same ? previous.calendarFireMillis : calendar.next(System.currentTimeMillis()));
+            return;
+        }
+        if (lastSentTick != NEVER_SENT)
+            resumeAfter(tick);
+        else
+            this.nextFireTick = alignToPhase(Math.max(tick, previous.nextFireTick));
+    }
+
+    /**
+     * Восстанавливает таймер после перезапуска сервера: последняя отправка была elapsedTicks тиков назад.
+     * Отправка, пропущенная пока сервер был выключен, выполняется на ближайшем тике фазы (без фазы -
+     * со смещением внутри первого интервала), а не сразу на первом тике
+     */
+    public void restoreSchedule(long tick, long elapsedTicks)
+    {
+        this.lastSentTick = tick - Math.max(0L, elapsedTicks);
+        if (calendar != null)
+            scheduleFirst(tick);
+        else
+            resumeAfter(tick);
+    }
+
+    /**
+     * Планирует первую отправку: ближайший тик фазы (без фазы - текущий тик), по часам - ближайшее время расписания
+     */
+    public void scheduleFirst(long tick)
     {
-        return lastSentTime;
+        if (calendar != null)
+            aimCalendar(tick, calendar.next(System.currentTimeMillis()));
+        else
+            this.nextFireTick = alignToPhase(tick);
     }
 
-    public void setLastSentTime(long time)
+    // Следующая отправка от последней; если она уже просрочена - ближайший тик фазы, а без фазы -
+    // смещение по имени типа внутри первого интервала, чтобы просроченные типы не срабатывали на одном тике
+    private void resumeAfter(long tick)
     {
-        this.lastSentTime = time;
+        long next = nextAfter(lastSentTick);
+        if (next >= tick)
+            this.nextFireTick = next;
+        else if (phaseTicks >= 0)
+            this.nextFireTick = alignToPhase(tick);
+        else
+            this.nextFireTick = tick + Math.floorMod(name.hashCode() * 0x9E3779B9L, intervalTicks);
     }
 
-    public boolean shouldSend(long currentTime)
+    /**
+     * Отмечает отправку на указанном тике и планирует следующую через интервал
+     */
+    public void markSent(long tick)
     {
-        return (currentTime - lastSentTime) >= (intervalSeconds * 1000L);
+        this.lastSentTick = tick;
+        if (calendar != null)
+            aimCalendar(tick, calendar.next(Math.max(calendarFireMillis, System.currentTimeMillis())));
+        else
+            this.nextFireTick = nextAfter(tick);
     }
 }
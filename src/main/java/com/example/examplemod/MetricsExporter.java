@@ -0,0 +1,65 @@
+package com.example.examplemod;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодическая выгрузка NotifyMetrics в локальный файл (Prometheus text или JSON) на фоновом потоке.
+ * Файл заменяется атомарно, чтобы внешний сборщик никогда не прочитал его наполовину записанным
+ */
+public final class MetricsExporter
+{
+    private static ScheduledExecutorService executor;
+
+    private MetricsExporter()
+    {
+    }
+
+    /**
+     * (Пере)запускает выгрузку по текущим настройкам Config. Интервал 0 - выгрузка выключена
+     */
+    public static synchronized void configure(int intervalSeconds, String format, Path file)
+    {
+        stop();
+        if (intervalSeconds <= 0)
+            return;
+
+        boolean json = "JSON".equalsIgnoreCase(format);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Notify-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> dump(file, json), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stop()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private static void dump(Path file, boolean json)
+    {
+        try
+        {
+            String content = json ? NotifyMetrics.toJson() : NotifyMetrics.toPrometheus();
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            ExampleMod.LOGGER.warn("[Notify] Failed to write metrics to {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.examplemod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Отключенные игроками типы сообщений (/notify mute|unmute). В памяти - битовое множество id типов
+ * на каждого онлайн-игрока: загружается в фоне при входе и освобождается при выходе. На диске -
+ * маленький файл на игрока (config/notify/mutes/<uuid>.dat) с именами типов, поэтому порядок типов
+ * в конфиге можно менять. Изменения пишутся фоновым потоком с задержкой FLUSH_DELAY_SECONDS,
+ * несколько изменений подряд дают одну запись
+ */
+public final class MuteStore
+{
+    private static final int MAGIC = 0x4E544D55; // "NTMU"
+    private static final int VERSION = 1;
+    private static final long FLUSH_DELAY_SECONDS = 5L;
+
+    // Id типов по имени: только растут, поэтому не меняются при перезагрузке конфига
+    private static final Map<String, Integer> typeIds = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextTypeId = new AtomicInteger();
+    // Онлайн-игроки с хотя бы одним отключенным типом -> битовое множество id типов (массив заменяется целиком)
+    private static final Map<UUID, long[]> muted = new ConcurrentHashMap<>();
+    // Изменения, еще не записанные на диск: игрок -> имена отключенных типов
+    private static final Map<UUID, List<String>> pending = new ConcurrentHashMap<>();
+    // Игроки онлайн: загрузка, завершившаяся после выхода игрока, ничего не оставляет в памяти
+    private static final Set<UUID> online = ConcurrentHashMap.newKeySet();
+    // Игроки, файл которых еще читается, и их изменения за это время: после чтения изменения
+    // накладываются поверх файла, иначе запись заменила бы его множеством только из новых типов.
+    // Доступ под монитором MuteStore
+    private static final Set<UUID> loading = new HashSet<>();
+    private static final Map<UUID, Delta> deltas = new HashMap<>();
+    private static ScheduledThreadPoolExecutor executor;
+    private static final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Изменения игрока до окончания загрузки: отключенные и включенные типы
+    private static final class Delta
+    {
+        long[] muted = new long[0];
+        long[] unmuted = new long[0];
+    }
+
+    private MuteStore()
+    {
+    }
+
+    /**
+     * Постоянный (на время работы сервера) id типа для битового множества
+     */
+    public static int typeId(String typeName)
+    {
+        return typeIds.computeIfAbsent(typeName.toLowerCase(), key -> nextTypeId.getAndIncrement());
+    }
+
+    /**
+     * Проверка одним битом; игроки без отключенных типов не хранятся вовсе.
+     * Безопасно из фонового потока подготовки рассылок
+     */
+    public static boolean isMuted(UUID player, int typeId)
+    {
+        long[] bits = muted.get(player);
+        return bits != null && (typeId >>> 6) < bits.length && (bits[typeId >>> 6] & (1L << typeId)) != 0;
+    }
+
+    public static boolean isEmpty()
+    {
+        return muted.isEmpty();
+    }
+
+    /**
+     * Отключает или включает тип для игрока. Возвращает false, если состояние уже было таким.
+     * Не ждет диск: пока файл игрока читается, изменение запоминается и накладывается на файл после чтения
+     */
+    public static synchronized boolean setMuted(UUID player, String typeName, boolean mute)
+    {
+        int id = typeId(typeName);
+        boolean loadingFile = loading.contains(player);
+        long[] bits = muted.getOrDefault(player, new long[0]);
+        // Во время загрузки состояние в памяти неполное - изменение принимается всегда
+        if (isSet(bits, id) == mute && !loadingFile)
+            return false;
+
+        long[] updated = with(bits, id, mute);
+        if (isBlank(updated))
+            muted.remove(player);
+        else
+            muted.put(player, updated);
+
+        if (loadingFile)
+        {
+            Delta delta = deltas.computeIfAbsent(player, key -> new Delta());
+            delta.muted = with(delta.muted, id, mute);
+            delta.unmuted = with(delta.unmuted, id, !mute);
+            return true;
+        }
+
+        pending.put(player, names(updated));
+        scheduleFlush();
+        return true;
+    }
+
+    /**
+     * Имена отключенных игроком типов (для вывода в команде)
+     */
+    public static List<String> getMutedTypes(UUID player)
+    {
+        long[] bits = muted.get(player);
+        return bits != null ? names(bits) : List.of();
+    }
+
+    /**
+     * Вход игрока: файл читается в фоновом потоке. Незаписанные изменения (быстрый перезаход) важнее файла
+     */
+    public static void load(UUID player)
+    {
+        online.add(player);
+        synchronized (MuteStore.class)
+        {
+            loading.add(player);
+        }
+        executor().execute(() -> {
+            List<String> names = pending.get(player);
+            if (names == null)
+                names = read(player);
+
+            long[] bits = new long[0];
+            for (String name : names)
+            {
+                bits = with(bits, typeId(name), true);
+            }
+            finishLoad(player, bits);
+        });
+    }
+
+    // Файл прочитан: изменения, сделанные во время чтения, накладываются поверх него и ставятся в запись
+    private static synchronized void finishLoad(UUID player, long[] fileBits)
+    {
+        loading.remove(player);
+        Delta delta = deltas.remove(player);
+        long[] bits = fileBits;
+        if (delta != null)
+        {
+            bits = Arrays.copyOf(bits, Math.max(bits.length, delta.muted.length));
+            for (int i = 0; i < bits.length; i++)
+            {
+                long mutedWord = i < delta.muted.length ? delta.muted[i] : 0L;
+                long unmutedWord = i < delta.unmuted.length ? delta.unmuted[i] : 0L;
+                bits[i] = (bits[i] | mutedWord) & ~unmutedWord;
+            }
+            pending.put(player, names(bits));
+            scheduleFlush();
+        }
+
+        if (!online.contains(player) || isBlank(bits))
+            muted.remove(player);
+        else
+            muted.put(player, bits);
+    }
+
+    /**
+     * Выход игрока: освобождаем память, незаписанные изменения остаются в очереди записи
+     */
+    public static synchronized void unload(UUID player)
+    {
+        online.remove(player);
+        muted.remove(player);
+    }
+
+    /**
+     * Остановка сервера: дописывает все изменения на текущем потоке
+     */
+    public static void shutdown()
+    {
+        ScheduledThreadPoolExecutor stopped;
+        synchronized (MuteStore.class)
+        {
+            stopped = executor;
+            executor = null;
+        }
+        if (stopped != null)
+        {
+            // Отложенная запись не ждет своей задержки; начатые загрузка и запись заканчиваются до финальной записи
+            stopped.shutdown();
+            try
+            {
+                stopped.awaitTermination(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushScheduled.set(false);
+        flush();
+        synchronized (MuteStore.class)
+        {
+            loading.clear();
+            deltas.clear();
+        }
+        online.clear();
+        muted.clear();
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor executor()
+    {
+        if (executor == null)
+        {
+            executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "Notify-MuteWriter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+        return executor;
+    }
+
+    private static synchronized void scheduleFlush()
+    {
+        if (!flushScheduled.compareAndSet(false, true))
+            return;
+
+        executor().schedule(() -> {
+            flushScheduled.set(false);
+            flush();
+        }, FLUSH_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void flush()
+    {
+        for (UUID player : List.copyOf(pending.keySet()))
+        {
+            List<String> names = pending.remove(player);
+            if (names == null)
+                continue;
+
+            try
+            {
+                write(player, names);
+            }
+            catch (IOException e)
+            {
+                ExampleMod.LOGGER.warn("[Notify] Failed to save muted types of {}: {}", player, e.getMessage());
+            }
+        }
+    }
+
+    // Игрок без отключенных типов - файл удаляется
+    private static void write(UUID player, List<String> names) throws IOException
+    {
+        Path path = getPath(player);
+        if (names.isEmpty())
+        {
+            Files.deleteIfExists(path);
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeShort(names.size());
+        for (String name : names)
+        {
+            out.writeUTF(name);
+        }
+        out.flush();
+
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<String> read(UUID player)
+    {
+        Path path = getPath(player);
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path)))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return List.of();
+
+            int count = in.readUnsignedShort();
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+            {
+                names.add(in.readUTF());
+            }
+            return names;
+        }
+        catch (NoSuchFileException e)
+        {
+            return List.of();
+        }
+        catch (IOException e)
+        {
+            ExampleMod.LOGGER.warn("[Notify] Failed to read muted types of {}: {}", player, e.getMessage());
+            return List.of();
+        }
+    }
+
+    // Имена типов по битам (id -> имя через обратный поиск по реестру, типов немного)
+    private static List<String> names(long[] bits)
+    {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : typeIds.entrySet())
+        {
+            if (isSet(bits, entry.getValue()))
+                names.add(entry.getKey());
+        }
+        return names;
+    }
+
+    // Копия множества с установленным или снятым битом типа
+    private static long[] with(long[] bits, int id, boolean set)
+    {
+        long[] updated = Arrays.copyOf(bits, Math.max(bits.length, (id >>> 6) + 1));
+        if (set)
+            updated[id >>> 6] |= 1L << id;
+        else
+            updated[id >>> 6] &= ~(1L << id);
+        return updated;
+    }
+
+    private static boolean isSet(long[] bits, int id)
+    {
+        return (id >>> 6) < bits.length && (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    private static boolean isBlank(long[] bits)
+    {
+        for (long word : bits)
+        {
+            if (word != 0L)
+                return false;
+        }
+        return true;
+    }
+
+    private static Path getPath(UUID player)
+    {
+        return Config.getMutesDirectory().resolve(player + ".dat");
+    }
+}
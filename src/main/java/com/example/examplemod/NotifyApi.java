@@ -0,0 +1,166 @@
+package com.example.examplemod;
+
+import net.minecraft.server.MinecraftServer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Публичный API для других модов: разовые объявления (начало события, предупреждение о рестарте)
+ * с локализацией, подстановками, разметкой и кликом, как у типов из конфига.
+ * Методы можно вызывать из любого потока: объявление кладется в неблокирующую очередь, а основной поток
+ * разбирает ее в onServerTick - не больше MAX_DRAIN_PER_TICK объявлений за тик. Одинаковое объявление,
+ * которое еще ждет отправки, второй раз в очередь не попадает
+ */
+public final class NotifyApi
+{
+    // Объявлений за тик и предельный размер очереди
+    private static final int MAX_DRAIN_PER_TICK = 8;
+    private static final int MAX_PENDING = 1024;
+    // Имя разовых объявлений в метриках (/notify stats)
+    private static final String ANNOUNCEMENT_TYPE = "api";
+
+    // Объявление: тип из конфига или тексты по языкам с необязательным кликом
+    private static final class Announcement
+    {
+        final String type;
+        final Map<String, String> textsByLang;
+        final String clickType;
+        final String clickValue;
+
+        Announcement(String type, Map<String, String> textsByLang, String clickType, String clickValue)
+        {
+            this.type = type;
+            this.textsByLang = textsByLang;
+            this.clickType = clickType;
+            this.clickValue = clickValue;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof Announcement announcement
+                    && Objects.equals(type, announcement.type)
+                    && Objects.equals(textsByLang, announcement.textsByLang)
+                    && Objects.equals(clickType, announcement.clickType)
+                    && Objects.equals(clickValue, announcement.clickValue);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(type, textsByLang, clickType, clickValue);
+        }
+    }
+
+    private static final Queue<Announcement> queue = new ConcurrentLinkedQueue<>();
+    // Объявления в очереди - для отсева повторов
+    private static final Set<Announcement> pending = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger size = new AtomicInteger();
+
+    private NotifyApi()
+    {
+    }
+
+    /**
+     * Отправляет сообщение типа из конфига вне его расписания (таймер типа не сбрасывается).
+     * Возвращает false, если такое же объявление уже ждет отправки или очередь переполнена
+     */
+    public static boolean announce(String type)
+    {
+        Objects.requireNonNull(type, "type");
+        return enqueue(new Announcement(type, null, null, null));
+    }
+
+    /**
+     * Отправляет текст каждому игроку на его языке (язык -> текст; недостающие языки - по цепочке fallback).
+     * Возвращает false, если такое же объявление уже ждет отправки или очередь переполнена
+     */
+    public static boolean announce(Map<String, String> textsByLang)
+    {
+        return announce(textsByLang, null, null);
+    }
+
+    /**
+     * То же, с кликом по всей строке: clickType "URL" или "COMMAND", clickValue - ссылка или команда
+     */
+    public static boolean announce(Map<String, String> textsByLang, String clickType, String clickValue)
+    {
+        if (textsByLang == null || textsByLang.isEmpty())
+            throw new IllegalArgumentException("textsByLang must not be empty");
+        return enqueue(new Announcement(null, Map.copyOf(textsByLang), clickType, clickValue));
+    }
+
+    private static boolean enqueue(Announcement announcement)
+    {
+        if (size.incrementAndGet() > MAX_PENDING)
+        {
+            size.decrementAndGet();
+            return false;
+        }
+        if (!pending.add(announcement))
+        {
+            size.decrementAndGet();
+            return false;
+        }
+        queue.offer(announcement);
+        return true;
+    }
+
+    /**
+     * Отправляет объявления из очереди. Только основной поток (onServerTick)
+     */
+    static void drain(MinecraftServer server)
+    {
+        for (int drained = 0; drained < MAX_DRAIN_PER_TICK; drained++)
+        {
+            Announcement announcement = queue.poll();
+            if (announcement == null)
+                return;
+
+            pending.remove(announcement);
+            size.decrementAndGet();
+
+            MessageType messageType = announcement.type != null
+                    ? MessageScheduler.getMessageType(announcement.type)
+                    : compile(announcement);
+            if (messageType == null)
+            {
+                ExampleMod.LOGGER.warn("[Notify] Announcement of unknown message type '{}' ignored", announcement.type);
+                continue;
+            }
+            MessageScheduler.announce(server, messageType);
+        }
+    }
+
+    // Разовый тип из текстов объявления; приоритет HIGH - объявление не откладывается при лагах
+    private static MessageType compile(Announcement announcement)
+    {
+        Map<String, List<String>> messagesByLang = new HashMap<>();
+        announcement.textsByLang.forEach((lang, text) -> messagesByLang.put(lang, List.of(text)));
+
+        boolean clickable = announcement.clickValue != null && !announcement.clickValue.isEmpty();
+        Config.MessageConfig config = new Config.MessageConfig(messagesByLang,
+                clickable ? List.of(announcement.clickValue) : List.of(), 0, clickable,
+                announcement.clickType != null ? announcement.clickType : "URL");
+        config.priority = TickThrottle.PRIORITY_HIGH;
+        return new MessageType(ANNOUNCEMENT_TYPE, config);
+    }
+
+    /**
+     * Остановка сервера: неотправленные объявления отбрасываются
+     */
+    static void clear()
+    {
+        queue.clear();
+        pending.clear();
+        size.set(0);
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.examplemod;
 
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
+import net.minecraft.commands.SharedSuggestionProvider;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraftforge.event.server.ServerStartingEvent;
@@ -11,9 +15,15 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.config.ModConfig;
 
+import java.util.List;
+
 @Mod.EventBusSubscriber(modid = ExampleMod.MODID)
 public class NotifyCommand
 {
+    private static final int EDIT_ADD = 0;
+    private static final int EDIT_REPLACE = 1;
+    private static final int EDIT_REMOVE = 2;
+
     private static ModConfig modConfig;
 
     @SubscribeEvent
@@ -23,40 +33,191 @@ public class NotifyCommand
         
         dispatcher.register(
             Commands.literal("notify")
-                .requires(source -> source.hasPermission(2)) // Требует OP уровень 2
                 .then(Commands.literal("reload")
+                    .requires(NotifyCommand::isOperator)
                     .executes(NotifyCommand::reload))
                 .then(Commands.literal("resetlangs")
+                    .requires(NotifyCommand::isOperator)
                     .executes(NotifyCommand::resetLanguages))
+                .then(Commands.literal("stats")
+                    .requires(NotifyCommand::isOperator)
+                    .executes(NotifyCommand::stats))
+                .then(Commands.literal("schedule")
+                    .requires(NotifyCommand::isOperator)
+                    .executes(context -> schedule(context, 10))
+                    .then(Commands.argument("count", IntegerArgumentType.integer(1, 50))
+                        .executes(context -> schedule(context, IntegerArgumentType.getInteger(context, "count")))))
+                // Изменение сообщений без правки файла: таблицы обновляются сразу, файл записывается в фоне
+                .then(Commands.literal("add")
+                    .requires(NotifyCommand::isOperator)
+                    .then(typeArgument()
+                        .then(languageArgument()
+                            .then(Commands.argument("text", StringArgumentType.greedyString())
+                                .executes(context -> editMessages(context, EDIT_ADD))))))
+                .then(Commands.literal("edit")
+                    .requires(NotifyCommand::isOperator)
+                    .then(typeArgument()
+                        .then(languageArgument()
+                            .then(Commands.argument("index", IntegerArgumentType.integer(1))
+                                .then(Commands.argument("text", StringArgumentType.greedyString())
+                                    .executes(context -> editMessages(context, EDIT_REPLACE)))))))
+                .then(Commands.literal("remove")
+                    .requires(NotifyCommand::isOperator)
+                    .then(typeArgument()
+                        .then(languageArgument()
+                            .then(Commands.argument("index", IntegerArgumentType.integer(1))
+                                .executes(context -> editMessages(context, EDIT_REMOVE))))))
+                // Отключение типов доступно всем игрокам
+                .then(Commands.literal("mute")
+                    .executes(NotifyCommand::listMuted)
+                    .then(typeArgument()
+                        .executes(context -> mute(context, true))))
+                .then(Commands.literal("unmute")
+                    .then(typeArgument()
+                        .executes(context -> mute(context, false))))
         );
     }
 
-    private static int reload(CommandContext<CommandSourceStack> context)
+    // Управление модом требует OP уровень 2
+    private static boolean isOperator(CommandSourceStack source)
+    {
+        return source.hasPermission(2);
+    }
+
+    private static RequiredArgumentBuilder<CommandSourceStack, String> typeArgument()
+    {
+        return Commands.argument("type", StringArgumentType.word())
+                .suggests((context, builder) -> SharedSuggestionProvider.suggest(Config.messageTypes, builder));
+    }
+
+    private static RequiredArgumentBuilder<CommandSourceStack, String> languageArgument()
+    {
+        return Commands.argument("lang", StringArgumentType.word())
+                .suggests((context, builder) -> SharedSuggestionProvider.suggest(Config.supportedLanguages, builder));
+    }
+
+    private static int editMessages(CommandContext<CommandSourceStack> context, int operation)
     {
         CommandSourceStack source = context.getSource();
+        String type = findType(StringArgumentType.getString(context, "type"));
+        String lang = StringArgumentType.getString(context, "lang");
+        if (type == null)
+        {
+            source.sendFailure(Component.literal("§c[Notify] §7Неизвестный тип сообщений: §e" + StringArgumentType.getString(context, "type")));
+            return 0;
+        }
+        if (!Config.supportedLanguages.contains(lang))
+        {
+            source.sendFailure(Component.literal("§c[Notify] §7Язык §e" + lang + " §7не указан в supportedLanguages"));
+            return 0;
+        }
+        // Тексты из файла языка имеют приоритет над основным конфигом - правка в нем была бы не видна
+        if (LanguageCorpus.hasFile(lang))
+        {
+            source.sendFailure(Component.literal("§c[Notify] §7Сообщения языка §e" + lang + " §7хранятся в файле config/notify/" + lang + ".toml"));
+            return 0;
+        }
         
-        try
+        List<String> messages = ConfigEditor.getMessages(type, lang);
+        int index = operation == EDIT_ADD ? messages.size() : IntegerArgumentType.getInteger(context, "index") - 1;
+        if (index >= messages.size() && operation != EDIT_ADD)
         {
-            ExampleMod.LOGGER.info("Принудительная перезагрузка конфига через команду /notify reload");
-            
-            // Перезагружаем конфиг
-            Config.reload();
-            
-            // Сбрасываем и переинициализируем планировщик
-            MessageScheduler.reset();
-            MessageScheduler.initialize();
-            
-            source.sendSuccess(() -> Component.literal("§a[Notify] §7Конфигурация перезагружена!"), true);
-            source.sendSuccess(() -> Component.literal("§7Загружено типов сообщений: §e" + Config.messageTypes.size()), false);
-            
+            source.sendFailure(Component.literal("§c[Notify] §7У типа §b" + type + " §7на языке §e" + lang + " §7всего сообщений: §e" + messages.size()));
+            return 0;
+        }
+        if (operation == EDIT_REMOVE && messages.size() == 1)
+        {
+            source.sendFailure(Component.literal("§c[Notify] §7Нельзя удалить последнее сообщение типа"));
+            return 0;
+        }
+        
+        switch (operation)
+        {
+            case EDIT_ADD -> messages.add(StringArgumentType.getString(context, "text"));
+            case EDIT_REPLACE -> messages.set(index, StringArgumentType.getString(context, "text"));
+            default -> messages.remove(index);
+        }
+        ConfigEditor.setMessages(type, lang, messages);
+        
+        String action = switch (operation)
+        {
+            case EDIT_ADD -> "добавлено";
+            case EDIT_REPLACE -> "изменено";
+            default -> "удалено";
+        };
+        source.sendSuccess(() -> Component.literal("§a[Notify] §7Сообщение §e#" + (index + 1) + " §7" + action
+                + " §8(" + type + ", " + lang + ", всего: " + messages.size() + ")"), true);
+        return 1;
+    }
+
+    private static int mute(CommandContext<CommandSourceStack> context, boolean mute)
+    {
+        CommandSourceStack source = context.getSource();
+        if (!(source.getEntity() instanceof ServerPlayer player))
+        {
+            source.sendFailure(Component.literal("§c[Notify] §7Команда доступна только игрокам"));
+            return 0;
+        }
+        
+        String type = findType(StringArgumentType.getString(context, "type"));
+        if (type == null)
+        {
+            source.sendFailure(Component.literal("§c[Notify] §7Неизвестный тип сообщений: §e" + StringArgumentType.getString(context, "type")));
+            return 0;
+        }
+        
+        if (!MuteStore.setMuted(player.getUUID(), type, mute))
+        {
+            source.sendSuccess(() -> Component.literal("§a[Notify] §7Сообщения §b" + type + (mute ? " §7уже отключены" : " §7уже включены")), false);
             return 1;
         }
-        catch (Exception e)
+        source.sendSuccess(() -> Component.literal("§a[Notify] §7Сообщения §b" + type + (mute ? " §7отключены" : " §7снова включены")), false);
+        return 1;
+    }
+
+    private static int listMuted(CommandContext<CommandSourceStack> context)
+    {
+        CommandSourceStack source = context.getSource();
+        if (!(source.getEntity() instanceof ServerPlayer player))
         {
-            source.sendFailure(Component.literal("§c[Notify] §7Ошибка при перезагрузке: " + e.getMessage()));
-            e.printStackTrace();
+            source.sendFailure(Component.literal("§c[Notify] §7Команда доступна только игрокам"));
             return 0;
         }
+        
+        List<String> muted = MuteStore.getMutedTypes(player.getUUID());
+        String line = muted.isEmpty() ? "§7Вы получаете все сообщения" : "§7Отключены: §b" + String.join("§7, §b", muted);
+        source.sendSuccess(() -> Component.literal("§a[Notify] " + line), false);
+        return 1;
+    }
+
+    // Тип из конфига без учета регистра
+    private static String findType(String name)
+    {
+        for (String type : Config.messageTypes)
+        {
+            if (type.equalsIgnoreCase(name))
+                return type;
+        }
+        return null;
+    }
+
+    private static int reload(CommandContext<CommandSourceStack> context)
+    {
+        CommandSourceStack source = context.getSource();
+        ExampleMod.LOGGER.info("Принудительная перезагрузка конфига через команду /notify reload");
+        
+        // Файлы разбираются в фоне; применение с сохранением таймеров неизмененных типов и ответ - на основном потоке
+        ConfigWatcher.reload(source.getServer(), error -> {
+            if (error != null)
+            {
+                source.sendFailure(Component.literal("§c[Notify] §7Ошибка при перезагрузке: " + error.getMessage()));
+                return;
+            }
+            source.sendSuccess(() -> Component.literal("§a[Notify] §7Конфигурация перезагружена!"), true);
+            source.sendSuccess(() -> Component.literal("§7Загружено типов сообщений: §e" + Config.messageTypes.size()), false);
+        });
+        source.sendSuccess(() -> Component.literal("§7[Notify] Перезагрузка конфигурации..."), false);
+        return 1;
     }
 
     private static int resetLanguages(CommandContext<CommandSourceStack> context)
@@ -90,4 +251,67 @@ public class NotifyCommand
             return 0;
         }
     }
+
+    private static int stats(CommandContext<CommandSourceStack> context)
+    {
+        CommandSourceStack source = context.getSource();
+        
+        source.sendSuccess(() -> Component.literal("§a[Notify] §7Статистика:"), false);
+        
+        // Рассылки по типам и доставка по языкам
+        source.sendSuccess(() -> Component.literal("§7Рассылки по типам: §e" + NotifyMetrics.broadcastsByType()), false);
+        source.sendSuccess(() -> Component.literal("§7Доставлено по языкам: §e" + NotifyMetrics.deliveredByLanguage()), false);
+        
+        long hits = NotifyMetrics.LANGUAGE_CACHE_HITS.sum();
+        long misses = NotifyMetrics.LANGUAGE_CACHE_MISSES.sum();
+        source.sendSuccess(() -> Component.literal("§7Кэш языков: §e" + hits + " §7попаданий, §e" + misses + " §7промахов"), false);
+        
+        TickThrottle throttle = MessageScheduler.getThrottle();
+        source.sendSuccess(() -> Component.literal(String.format("§7Нагрузка: §e%.1f MSPT§7, уровень §e%s§7, отложено отправок: §e%d",
+                throttle.getMspt(), TickThrottle.levelName(throttle.getLevel()), NotifyMetrics.THROTTLE_DEFERRALS.sum())), false);
+        
+        sendHistogram(source, "onServerTick", NotifyMetrics.TICK_NANOS);
+        sendHistogram(source, "sendMessageToAllPlayers", NotifyMetrics.BROADCAST_NANOS);
+        sendHistogram(source, "Config.reload", NotifyMetrics.RELOAD_NANOS);
+        
+        return 1;
+    }
+
+    private static int schedule(CommandContext<CommandSourceStack> context, int count)
+    {
+        CommandSourceStack source = context.getSource();
+        List<PhasePlanner.Fire> fires = MessageScheduler.previewSchedule(count);
+        PhasePlanner planner = MessageScheduler.getPhasePlanner();
+        long currentTick = MessageScheduler.getCurrentTick();
+        
+        source.sendSuccess(() -> Component.literal("§a[Notify] §7Ближайшие отправки §8(пик: §e" + planner.getPeakPerSecond()
+                + " §7в секунду, §e" + planner.getPeakPerMinute() + " §7в минуту§8)§7:"), false);
+        if (fires.isEmpty())
+        {
+            source.sendSuccess(() -> Component.literal("§7Нет запланированных отправок"), false);
+            return 1;
+        }
+        
+        for (PhasePlanner.Fire fire : fires)
+        {
+            long seconds = Math.max(0L, fire.getTick() - currentTick) / 20L;
+            String time = seconds >= 3600
+                    ? String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60)
+                    : String.format("%d:%02d", seconds / 60, seconds % 60);
+            String line = "§7через §e" + time + " §7- §b" + fire.getTypeName();
+            source.sendSuccess(() -> Component.literal(line), false);
+        }
+        return 1;
+    }
+
+    private static void sendHistogram(CommandSourceStack source, String name, LatencyHistogram histogram)
+    {
+        long count = histogram.getCount();
+        String line = count == 0
+                ? "§7" + name + ": §eнет данных"
+                : String.format("§7%s: §e%d §7вызовов, среднее §e%.1f мкс§7, p50 §e%.1f мкс§7, p99 §e%.1f мкс§7, макс §e%.1f мкс",
+                        name, count, histogram.getSum() / 1000.0 / count, histogram.percentile(0.5) / 1000.0,
+                        histogram.percentile(0.99) / 1000.0, histogram.getMax() / 1000.0);
+        source.sendSuccess(() -> Component.literal(line), false);
+    }
 }
@@ -0,0 +1,240 @@
+package com.example.examplemod;
+
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Условие отправки типа сообщения (параметр condition в [messages.<type>]).
+ * Выражение компилируется один раз при загрузке конфига в дерево предикатов
+ * и затем проверяется по ServerSnapshot без разбора строк и выделения памяти.
+ *
+ * Переменные: online, maxPlayers, mspt, tps, time (время суток 0-23999), night, day.
+ * Операторы: > >= < <= == != ! && || и скобки, например "online > 50 && tps >= 18" или "night"
+ */
+@FunctionalInterface
+public interface NotifyCondition
+{
+    NotifyCondition ALWAYS = snapshot -> true;
+
+    boolean test(ServerSnapshot snapshot);
+
+    /**
+     * Компилирует выражение. Пустое выражение - условие всегда выполняется.
+     * При ошибке синтаксиса бросает IllegalArgumentException с описанием
+     */
+    static NotifyCondition compile(String expression)
+    {
+        if (expression == null || expression.isBlank())
+            return ALWAYS;
+
+        return new Parser(expression).parse();
+    }
+
+    /**
+     * Рекурсивный спуск: or := and ('||' and)*, and := unary ('&&' unary)*,
+     * unary := '!' unary | '(' or ')' | флаг | значение оператор значение
+     */
+    final class Parser
+    {
+        private final String source;
+        private int position;
+
+        private Parser(String source)
+        {
+            this.source = source;
+        }
+
+        private NotifyCondition parse()
+        {
+            NotifyCondition condition = parseOr();
+            skipSpaces();
+            if (position < source.length())
+                throw error("unexpected '" + source.charAt(position) + "'");
+            return condition;
+        }
+
+        private NotifyCondition parseOr()
+        {
+            NotifyCondition left = parseAnd();
+            while (accept("||"))
+            {
+                NotifyCondition first = left;
+                NotifyCondition second = parseAnd();
+                left = snapshot -> first.test(snapshot) || second.test(snapshot);
+            }
+            return left;
+        }
+
+        private NotifyCondition parseAnd()
+        {
+            NotifyCondition left = parseUnary();
+            while (accept("&&"))
+            {
+                NotifyCondition first = left;
+                NotifyCondition second = parseUnary();
+                left = snapshot -> first.test(snapshot) && second.test(snapshot);
+            }
+            return left;
+        }
+
+        private NotifyCondition parseUnary()
+        {
+            if (accept("!"))
+            {
+                NotifyCondition inner = parseUnary();
+                return snapshot -> !inner.test(snapshot);
+            }
+            if (accept("("))
+            {
+                NotifyCondition inner = parseOr();
+                if (!accept(")"))
+                    throw error("expected ')'");
+                return inner;
+            }
+
+            // Флаги без сравнения
+            int start = position;
+            String word = readWord();
+            if (word != null && !peekComparison())
+            {
+                switch (word)
+                {
+                    case "night":
+                        return ServerSnapshot::isNight;
+                    case "day":
+                        return snapshot -> !snapshot.isNight();
+                    default:
+                        break;
+                }
+            }
+            position = start;
+            return parseComparison();
+        }
+
+        private NotifyCondition parseComparison()
+        {
+            ToDoubleFunction<ServerSnapshot> left = parseValue();
+            String operator = readComparison();
+            if (operator == null)
+                throw error("expected comparison operator");
+            ToDoubleFunction<ServerSnapshot> right = parseValue();
+
+            switch (operator)
+            {
+                case ">":
+                    return snapshot -> left.applyAsDouble(snapshot) > right.applyAsDouble(snapshot);
+                case ">=":
+                    return snapshot -> left.applyAsDouble(snapshot) >= right.applyAsDouble(snapshot);
+                case "<":
+                    return snapshot -> left.applyAsDouble(snapshot) < right.applyAsDouble(snapshot);
+                case "<=":
+                    return snapshot -> left.applyAsDouble(snapshot) <= right.applyAsDouble(snapshot);
+                case "==":
+                    return snapshot -> left.applyAsDouble(snapshot) == right.applyAsDouble(snapshot);
+                default:
+                    return snapshot -> left.applyAsDouble(snapshot) != right.applyAsDouble(snapshot);
+            }
+        }
+
+        private ToDoubleFunction<ServerSnapshot> parseValue()
+        {
+            skipSpaces();
+            int start = position;
+            while (position < source.length()
+                    && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.'))
+            {
+                position++;
+            }
+            if (position > start)
+            {
+                double constant;
+                try
+                {
+                    constant = Double.parseDouble(source.substring(start, position));
+                }
+                catch (NumberFormatException e)
+                {
+                    throw error("invalid number '" + source.substring(start, position) + "'");
+                }
+                return snapshot -> constant;
+            }
+
+            String word = readWord();
+            if (word == null)
+                throw error("expected value");
+
+            switch (word)
+            {
+                case "online":
+                    return ServerSnapshot::getOnline;
+                case "maxplayers":
+                    return ServerSnapshot::getMaxPlayers;
+                case "mspt":
+                    return ServerSnapshot::getMspt;
+                case "tps":
+                    return ServerSnapshot::getTps;
+                case "time":
+                    return ServerSnapshot::getDayTime;
+                default:
+                    throw error("unknown variable '" + word + "'");
+            }
+        }
+
+        // Идентификатор в нижнем регистре или null
+        private String readWord()
+        {
+            skipSpaces();
+            int start = position;
+            while (position < source.length() && Character.isLetter(source.charAt(position)))
+            {
+                position++;
+            }
+            return position > start ? source.substring(start, position).toLowerCase(Locale.ROOT) : null;
+        }
+
+        private boolean peekComparison()
+        {
+            int start = position;
+            String operator = readComparison();
+            position = start;
+            return operator != null;
+        }
+
+        private String readComparison()
+        {
+            for (String operator : new String[] { ">=", "<=", "==", "!=", ">", "<" })
+            {
+                if (accept(operator))
+                    return operator;
+            }
+            return null;
+        }
+
+        private boolean accept(String token)
+        {
+            skipSpaces();
+            if (source.startsWith(token, position))
+            {
+                // "!" не должен съедать начало "!="
+                if (token.equals("!") && source.startsWith("!=", position))
+                    return false;
+                position += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces()
+        {
+            while (position < source.length() && Character.isWhitespace(source.charAt(position)))
+            {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message)
+        {
+            return new IllegalArgumentException(message + " at position " + position + " in \"" + source + "\"");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.examplemod;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики и гистограммы работы мода. Запись lock-free (LongAdder / атомики),
+ * чтение - для /notify stats и периодической выгрузки в файл (MetricsExporter)
+ */
+public final class NotifyMetrics
+{
+    // Время onServerTick и sendMessageToAllPlayers
+    public static final LatencyHistogram TICK_NANOS = new LatencyHistogram();
+    public static final LatencyHistogram BROADCAST_NANOS = new LatencyHistogram();
+    // Длительность Config.reload
+    public static final LatencyHistogram RELOAD_NANOS = new LatencyHistogram();
+
+    // Попадания/промахи кэша языков в getPlayerLanguageId
+    public static final LongAdder LANGUAGE_CACHE_HITS = new LongAdder();
+    public static final LongAdder LANGUAGE_CACHE_MISSES = new LongAdder();
+    // Отправки, отложенные из-за лагов сервера (TickThrottle)
+    public static final LongAdder THROTTLE_DEFERRALS = new LongAdder();
+    // Записи журнала доставки, отброшенные из-за переполнения буфера (DeliveryAudit)
+    public static final LongAdder AUDIT_DROPPED = new LongAdder();
+
+    // Рассылки по типам и доставленные сообщения по языкам
+    private static final ConcurrentHashMap<String, LongAdder> broadcastsByType = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LongAdder> deliveredByLanguage = new ConcurrentHashMap<>();
+    // Метка для игроков с неподдерживаемым языком (fallback-строка таблицы)
+    private static final String FALLBACK_LANGUAGE = "fallback";
+
+    private NotifyMetrics()
+    {
+    }
+
+    /**
+     * Счетчик рассылок типа. MessageType получает его один раз при создании, чтобы не искать в таблице на каждой рассылке
+     */
+    public static LongAdder broadcastCounter(String type)
+    {
+        return broadcastsByType.computeIfAbsent(type, key -> new LongAdder());
+    }
+
+    /**
+     * Учитывает доставленные сообщения для строки языка (id языка или fallback-строка)
+     */
+    public static void recordDelivered(int languageId, int count)
+    {
+        if (count <= 0)
+            return;
+
+        String lang = Config.locales.getCode(languageId);
+        deliveredByLanguage.computeIfAbsent(lang != null ? lang : FALLBACK_LANGUAGE, key -> new LongAdder()).add(count);
+    }
+
+    // Снимки счетчиков в отсортированном виде для вывода
+
+    public static Map<String, Long> broadcastsByType()
+    {
+        return snapshot(broadcastsByType);
+    }
+
+    public static Map<String, Long> deliveredByLanguage()
+    {
+        return snapshot(deliveredByLanguage);
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters)
+    {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((key, counter) -> result.put(key, counter.sum()));
+        return result;
+    }
+
+    /**
+     * Выгрузка в текстовом формате Prometheus (для textfile collector node exporter)
+     */
+    public static String toPrometheus()
+    {
+        StringBuilder out = new StringBuilder(2048);
+
+        out.append("# TYPE notify_broadcasts_total counter\n");
+        broadcastsByType().forEach((type, value) ->
+                out.append("notify_broadcasts_total{type=\"").append(escape(type)).append("\"} ").append(value).append('\n'));
+
+        out.append("# TYPE notify_delivered_total counter\n");
+        deliveredByLanguage().forEach((lang, value) ->
+                out.append("notify_delivered_total{lang=\"").append(escape(lang)).append("\"} ").append(value).append('\n'));
+
+        out.append("# TYPE notify_language_cache_hits_total counter\n");
+        out.append("notify_language_cache_hits_total ").append(LANGUAGE_CACHE_HITS.sum()).append('\n');
+        out.append("# TYPE notify_language_cache_misses_total counter\n");
+        out.append("notify_language_cache_misses_total ").append(LANGUAGE_CACHE_MISSES.sum()).append('\n');
+        out.append("# TYPE notify_throttle_deferrals_total counter\n");
+        out.append("notify_throttle_deferrals_total ").append(THROTTLE_DEFERRALS.sum()).append('\n');
+        out.append("# TYPE notify_audit_dropped_total counter\n");
+        out.append("notify_audit_dropped_total ").append(AUDIT_DROPPED.sum()).append('\n');
+
+        appendHistogram(out, "notify_tick_seconds", TICK_NANOS);
+        appendHistogram(out, "notify_broadcast_seconds", BROADCAST_NANOS);
+        appendHistogram(out, "notify_reload_seconds", RELOAD_NANOS);
+        return out.toString();
+    }
+
+    /**
+     * Выгрузка в JSON
+     */
+    public static String toJson()
+    {
+        StringBuilder out = new StringBuilder(1024);
+        out.append("{\n  \"broadcastsByType\": ");
+        appendJsonMap(out, broadcastsByType());
+        out.append(",\n  \"deliveredByLanguage\": ");
+        appendJsonMap(out, deliveredByLanguage());
+        out.append(",\n  \"languageCacheHits\": ").append(LANGUAGE_CACHE_HITS.sum());
+        out.append(",\n  \"languageCacheMisses\": ").append(LANGUAGE_CACHE_MISSES.sum());
+        out.append(",\n  \"throttleDeferrals\": ").append(THROTTLE_DEFERRALS.sum());
+        out.append(",\n  \"auditDropped\": ").append(AUDIT_DROPPED.sum());
+        out.append(",\n  \"tickNanos\": ");
+        appendJsonHistogram(out, TICK_NANOS);
+        out.append(",\n  \"broadcastNanos\": ");
+        appendJsonHistogram(out, BROADCAST_NANOS);
+        out.append(",\n  \"reloadNanos\": ");
+        appendJsonHistogram(out, RELOAD_NANOS);
+        out.append("\n}\n");
+        return out.toString();
+    }
+
+    // Корзины от ~1 мкс до ~17 с (каждая вторая степень двойки), значения в секундах
+    private static void appendHistogram(StringBuilder out, String name, LatencyHistogram histogram)
+    {
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        long cumulative = 0;
+        int next = 0;
+        for (int bound = 10; bound <= 34; bound += 2)
+        {
+            for (; next <= bound; next++)
+            {
+                cumulative += histogram.getBucket(next);
+            }
+            out.append(name).append("_bucket{le=\"").append(LatencyHistogram.upperBound(bound) / 1e9).append("\"} ")
+               .append(cumulative).append('\n');
+        }
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(histogram.getCount()).append('\n');
+        out.append(name).append("_sum ").append(histogram.getSum() / 1e9).append('\n');
+        out.append(name).append("_count ").append(histogram.getCount()).append('\n');
+    }
+
+    private static void appendJsonMap(StringBuilder out, Map<String, Long> values)
+    {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : values.entrySet())
+        {
+            if (!first)
+                out.append(", ");
+            out.append('"').append(escape(entry.getKey())).append("\": ").append(entry.getValue());
+            first = false;
+        }
+        out.append('}');
+    }
+
+    private static void appendJsonHistogram(StringBuilder out, LatencyHistogram histogram)
+    {
+        out.append("{\"count\": ").append(histogram.getCount())
+           .append(", \"sum\": ").append(histogram.getSum())
+           .append(", \"p50\": ").append(histogram.percentile(0.5))
+           .append(", \"p99\": ").append(histogram.percentile(0.99))
+           .append(", \"max\": ").append(histogram.getMax())
+           .append('}');
+    }
+
+    private static String escape(String value)
+    {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
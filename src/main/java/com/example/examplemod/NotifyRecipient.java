@@ -0,0 +1,45 @@
+package com.example.examplemod;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.chat.Component;
+
+import java.util.UUID;
+
+/**
+ * Получатель рассылки - то, что prepareBroadcast и PreparedBroadcast знают об игроке.
+ * На сервере это PlayerRecipient над ServerPlayer; бенчмарки подставляют заменитель без сервера
+ */
+public interface NotifyRecipient
+{
+    UUID getUUID();
+
+    /**
+     * Локаль клиента в том виде, в котором ее присылает игра ("ru_ru"); может быть null
+     */
+    String getLanguage();
+
+    /**
+     * Чат скрыт - системные сообщения не принимаются
+     */
+    boolean isChatHidden();
+
+    boolean hasDisconnected();
+
+    /**
+     * Имя игрока (оно же имя в таблице счета) - переменная {player} и состав команд
+     */
+    String getPlayerName();
+
+    /**
+     * Измерение без пространства имен ("overworld") - переменная {world}
+     */
+    String getWorldName();
+
+    void sendSystemMessage(Component message);
+
+    /**
+     * Отправляет пакет, закодированный SharedPacketBroadcaster.encode. false - соединение не принимает
+     * общий буфер, и сообщение нужно отправить через sendSystemMessage
+     */
+    boolean sendEncoded(ByteBuf encoded);
+}
@@ -0,0 +1,232 @@
+package com.example.examplemod;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Планировщик фаз: раздает типам смещения внутри их интервалов так, чтобы типы с интервалами
+ * вроде 180/300/600 секунд не совпадали на одном тике. Нагрузка считается по секундам на периоде,
+ * равном НОК интервалов (с ограничением длины), и для каждого нового типа выбирается фаза
+ * с наименьшим пиком в секунду, а при равенстве - в минуту. При перезагрузке конфига типы
+ * с тем же интервалом сохраняют свою фазу, размещаются только новые и измененные
+ */
+public final class PhasePlanner
+{
+    // Шаг сетки фаз - одна секунда
+    public static final int BUCKET_TICKS = 20;
+    private static final int BUCKETS_PER_MINUTE = 60;
+    // Ограничение периода планирования (около 18 часов); при большем НОК нагрузка считается приближенно
+    private static final int MAX_BUCKETS = 1 << 16;
+
+    /**
+     * Плановая отправка для предпросмотра /notify schedule
+     */
+    public static final class Fire
+    {
+        private final String typeName;
+        private final long tick;
+
+        Fire(String typeName, long tick)
+        {
+            this.typeName = typeName;
+            this.tick = tick;
+        }
+
+        public String getTypeName()
+        {
+            return typeName;
+        }
+
+        public long getTick()
+        {
+            return tick;
+        }
+    }
+
+    // Размещенный тип: период и фаза в секундах сетки
+    private static final class Placement
+    {
+        final int period;
+        final int phase;
+
+        Placement(int period, int phase)
+        {
+            this.period = period;
+            this.phase = phase;
+        }
+    }
+
+    private final Map<String, Placement> placements = new HashMap<>();
+    private int horizon = 1;
+    private int[] secondLoad = new int[1];
+    private int[] minuteLoad = new int[1];
+
+    /**
+     * Назначает фазы типам: сохраняет фазы типов с прежним интервалом и размещает остальные
+     * (сначала самые частые - у них меньше свободы). Возвращает число размещенных заново типов
+     */
+    public int plan(List<MessageType> messageTypes)
+    {
+        Set<String> names = new HashSet<>();
+        List<MessageType> pending = new ArrayList<>();
+        long lcm = 1;
+        for (MessageType messageType : messageTypes)
+        {
+            // Типы с расписанием по часам отправляются в заданное время, фаза им не нужна
+            if (messageType.isCalendar())
+                continue;
+            names.add(messageType.getName());
+            int period = period(messageType);
+            lcm = Math.min(MAX_BUCKETS, lcm / gcd(lcm, period) * period);
+
+            Placement placement = placements.get(messageType.getName());
+            if (placement == null || placement.period != period)
+            {
+                placements.remove(messageType.getName());
+                pending.add(messageType);
+            }
+        }
+        placements.keySet().retainAll(names);
+
+        // Нагрузка пересчитывается по сохраненным фазам (период планирования мог измениться)
+        rebuildLoad((int) lcm);
+
+        pending.sort(Comparator.comparingInt(PhasePlanner::period));
+        for (MessageType messageType : pending)
+        {
+            int period = period(messageType);
+            Placement placement = new Placement(period, bestPhase(period));
+            placements.put(messageType.getName(), placement);
+            addLoad(placement);
+        }
+
+        for (MessageType messageType : messageTypes)
+        {
+            Placement placement = placements.get(messageType.getName());
+            if (placement == null)
+                continue;
+            messageType.setPhase((long) placement.phase * BUCKET_TICKS % messageType.getIntervalTicks());
+        }
+        return pending.size();
+    }
+
+    public void clear()
+    {
+        placements.clear();
+        rebuildLoad(1);
+    }
+
+    /**
+     * Наибольшее число отправок в одну секунду по плану
+     */
+    public int getPeakPerSecond()
+    {
+        return max(secondLoad);
+    }
+
+    /**
+     * Наибольшее число отправок в одну минуту по плану
+     */
+    public int getPeakPerMinute()
+    {
+        return max(minuteLoad);
+    }
+
+    /**
+     * Ближайшие count отправок типов начиная с тика следующей отправки каждого типа
+     */
+    public static List<Fire> preview(List<MessageType> messageTypes, int count)
+    {
+        List<Fire> fires = new ArrayList<>();
+        for (MessageType messageType : messageTypes)
+        {
+            for (long tick : messageType.upcomingTicks(count))
+            {
+                fires.add(new Fire(messageType.getName(), tick));
+            }
+        }
+        fires.sort(Comparator.comparingLong(Fire::getTick));
+        return fires.size() > count ? new ArrayList<>(fires.subList(0, count)) : fires;
+    }
+
+    // Фаза с наименьшим пиком в секунду, при равенстве - в минуту, затем с меньшей суммарной нагрузкой
+    private int bestPhase(int period)
+    {
+        int bestPhase = 0;
+        long bestCost = Long.MAX_VALUE;
+        for (int phase = 0; phase < period; phase++)
+        {
+            int peakSecond = 0;
+            int peakMinute = 0;
+            int total = 0;
+            for (int bucket = phase; bucket < horizon; bucket += period)
+            {
+                peakSecond = Math.max(peakSecond, secondLoad[bucket]);
+                peakMinute = Math.max(peakMinute, minuteLoad[bucket / BUCKETS_PER_MINUTE]);
+                total += secondLoad[bucket];
+            }
+
+            long cost = ((long) peakSecond << 42) | ((long) Math.min(peakMinute, 0xFFFFF) << 22) | Math.min(total, 0x3FFFFF);
+            if (cost < bestCost)
+            {
+                bestCost = cost;
+                bestPhase = phase;
+                if (cost == 0)
+                    break;
+            }
+        }
+        return bestPhase;
+    }
+
+    private void rebuildLoad(int newHorizon)
+    {
+        horizon = Math.max(1, newHorizon);
+        secondLoad = new int[horizon];
+        minuteLoad = new int[(horizon + BUCKETS_PER_MINUTE - 1) / BUCKETS_PER_MINUTE];
+        for (Placement placement : placements.values())
+        {
+            addLoad(placement);
+        }
+    }
+
+    private void addLoad(Placement placement)
+    {
+        for (int bucket = placement.phase; bucket < horizon; bucket += placement.period)
+        {
+            secondLoad[bucket]++;
+            minuteLoad[bucket / BUCKETS_PER_MINUTE]++;
+        }
+    }
+
+    // Интервал типа в секундах сетки (не меньше одной)
+    private static int period(MessageType messageType)
+    {
+        return (int) Math.max(1L, Math.min(MAX_BUCKETS, messageType.getIntervalTicks() / BUCKET_TICKS));
+    }
+
+    private static long gcd(long a, long b)
+    {
+        while (b != 0)
+        {
+            long next = a % b;
+            a = b;
+            b = next;
+        }
+        return a;
+    }
+
+    private static int max(int[] values)
+    {
+        int max = 0;
+        for (int value : values)
+        {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.examplemod;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Компактное хранилище языков игроков: одна запись на игрока с id языка
+ * (индекс в Config.supportedLanguages) и временем последней проверки без boxing.
+ * Чтение безопасно из любого потока (фоновая подготовка рассылок), запись - с основного или фонового потока
+ */
+public final class PlayerLanguageStore
+{
+    // Язык игрока не входит в supportedLanguages - используется fallback
+    public static final int UNSUPPORTED = -1;
+    // Записи для игрока нет
+    public static final int ABSENT = -2;
+
+    // Посетитель записей без упаковки id языка
+    @FunctionalInterface
+    public interface Visitor
+    {
+        void visit(UUID player, int languageId);
+    }
+
+    private static final class Entry
+    {
+        // Игрок записи - forEach обходит массив записей по слотам и не создает объектов
+        final UUID player;
+        volatile int languageId;
+        volatile long lastCheckMillis;
+        // Слот игрока в плоских массивах (ShuffleRotation) и уникальный токен записи -
+        // по нему отличается новый владелец переиспользованного слота
+        final int slot;
+        final int token;
+
+        Entry(UUID player, int languageId, long lastCheckMillis, int slot, int token)
+        {
+            this.player = player;
+            this.languageId = languageId;
+            this.lastCheckMillis = lastCheckMillis;
+            this.slot = slot;
+            this.token = token;
+        }
+    }
+
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    // Записи по слотам (null - слот свободен) для обхода без итератора таблицы.
+    // Меняется под монитором хранилища, массив заменяется целиком при росте
+    private volatile Entry[] bySlot = new Entry[16];
+    // Количество игроков по id языка; последний слот - неподдерживаемые языки
+    private volatile AtomicIntegerArray counts;
+    // Список языков, на который указывают id (снимок Config.supportedLanguages)
+    private volatile List<String> languages;
+    // Свободные слоты (стек) и следующий новый слот; токены записей
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int nextSlot;
+    private int nextToken = 1;
+
+    public PlayerLanguageStore(List<String> languages)
+    {
+        this.languages = List.copyOf(languages);
+        this.counts = new AtomicIntegerArray(languages.size() + 1);
+    }
+
+    /**
+     * Id языка игрока или ABSENT, если записи нет
+     */
+    public int getLanguageId(UUID player)
+    {
+        Entry entry = entries.get(player);
+        return entry != null ? entry.languageId : ABSENT;
+    }
+
+    /**
+     * Id языка игрока, если он проверялся не раньше maxAgeMillis назад, иначе ABSENT.
+     * Один поиск в таблице на горячем пути рассылки
+     */
+    public int getFreshLanguageId(UUID player, long nowMillis, long maxAgeMillis)
+    {
+        Entry entry = entries.get(player);
+        if (entry == null || nowMillis - entry.lastCheckMillis >= maxAgeMillis)
+            return ABSENT;
+        return entry.languageId;
+    }
+
+    /**
+     * Сохраняет язык игрока и время проверки. Возвращает предыдущий id языка или ABSENT
+     */
+    public int put(UUID player, int languageId, long nowMillis)
+    {
+        Entry entry = entries.get(player);
+        if (entry == null)
+        {
+            Entry created = newEntry(player, languageId, nowMillis);
+            entry = entries.putIfAbsent(player, created);
+            if (entry == null)
+            {
+                publish(created);
+                increment(languageId);
+                return ABSENT;
+            }
+            freeSlot(created.slot);
+        }
+
+        synchronized (entry)
+        {
+            int previous = entry.languageId;
+            entry.lastCheckMillis = nowMillis;
+            if (previous != languageId)
+            {
+                entry.languageId = languageId;
+                decrement(previous);
+                increment(languageId);
+            }
+            return previous;
+        }
+    }
+
+    public boolean remove(UUID player)
+    {
+        Entry entry = entries.remove(player);
+        if (entry == null)
+            return false;
+
+        // Как в put: смена языка и счетчики - под монитором записи
+        synchronized (entry)
+        {
+            decrement(entry.languageId);
+        }
+        freeSlot(entry.slot);
+        return true;
+    }
+
+    /**
+     * Ключ ротации игрока: слот в младших 32 битах, токен записи в старших; -1 если записи нет
+     */
+    public long getRotationKey(UUID player)
+    {
+        Entry entry = entries.get(player);
+        return entry != null ? ((long) entry.token << 32) | (entry.slot & 0xFFFFFFFFL) : -1L;
+    }
+
+    private synchronized Entry newEntry(UUID player, int languageId, long nowMillis)
+    {
+        int slot = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : nextSlot++;
+        return new Entry(player, languageId, nowMillis, slot, nextToken++);
+    }
+
+    private synchronized void publish(Entry entry)
+    {
+        Entry[] current = bySlot;
+        if (entry.slot >= current.length)
+        {
+            current = Arrays.copyOf(current, Math.max(current.length * 2, entry.slot + 1));
+            bySlot = current;
+        }
+        current[entry.slot] = entry;
+    }
+
+    private synchronized void freeSlot(int slot)
+    {
+        Entry[] current = bySlot;
+        if (slot < current.length)
+            current[slot] = null;
+        if (freeSlotCount == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Очищает хранилище и возвращает число удаленных записей
+     */
+    public synchronized int clear()
+    {
+        int size = entries.size();
+        entries.clear();
+        bySlot = new Entry[16];
+        counts = new AtomicIntegerArray(languages.size() + 1);
+        // Токены не сбрасываются - ротации увидят новых владельцев слотов
+        freeSlotCount = 0;
+        nextSlot = 0;
+        return size;
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Количество игроков с указанным id языка (UNSUPPORTED - игроки с неподдерживаемым языком)
+     */
+    public int getCount(int languageId)
+    {
+        AtomicIntegerArray current = counts;
+        int slot = slot(languageId, current);
+        return slot >= 0 ? current.get(slot) : 0;
+    }
+
+    /**
+     * Обходит записи по массиву слотов: без итератора и других объектов на вызов.
+     * Запись, добавленная или удаленная во время обхода, может попасть или не попасть в него
+     */
+    public void forEach(Visitor visitor)
+    {
+        Entry[] current = bySlot;
+        for (Entry entry : current)
+        {
+            if (entry != null)
+                visitor.visit(entry.player, entry.languageId);
+        }
+    }
+
+    /**
+     * Переводит id языков на новый список supportedLanguages (после перезагрузки конфига).
+     * Языки, которых больше нет в списке, становятся UNSUPPORTED
+     */
+    public synchronized void remap(List<String> newLanguages)
+    {
+        List<String> oldLanguages = languages;
+        if (oldLanguages.equals(newLanguages))
+            return;
+
+        AtomicIntegerArray newCounts = new AtomicIntegerArray(newLanguages.size() + 1);
+        for (Entry entry : bySlot)
+        {
+            if (entry == null)
+                continue;
+            synchronized (entry)
+            {
+                int oldId = entry.languageId;
+                int newId = oldId >= 0 && oldId < oldLanguages.size()
+                        ? newLanguages.indexOf(oldLanguages.get(oldId))
+                        : UNSUPPORTED;
+                entry.languageId = newId;
+                newCounts.incrementAndGet(newId >= 0 ? newId : newLanguages.size());
+            }
+        }
+
+        languages = List.copyOf(newLanguages);
+        counts = newCounts;
+    }
+
+    /**
+     * true, если id языков указывают в тот же список supportedLanguages
+     */
+    public boolean hasLanguages(List<String> supportedLanguages)
+    {
+        return languages.equals(supportedLanguages);
+    }
+
+    /**
+     * Код языка для id из текущего списка или null для UNSUPPORTED/ABSENT
+     */
+    public String getLanguageCode(int languageId)
+    {
+        List<String> current = languages;
+        return languageId >= 0 && languageId < current.size() ? current.get(languageId) : null;
+    }
+
+    private void increment(int languageId)
+    {
+        AtomicIntegerArray current = counts;
+        int slot = slot(languageId, current);
+        if (slot >= 0)
+            current.incrementAndGet(slot);
+    }
+
+    private void decrement(int languageId)
+    {
+        AtomicIntegerArray current = counts;
+        int slot = slot(languageId, current);
+        if (slot >= 0)
+            current.decrementAndGet(slot);
+    }
+
+    // Слот счетчика: id языка или последний слот для неподдерживаемых
+    private static int slot(int languageId, AtomicIntegerArray current)
+    {
+        if (languageId == UNSUPPORTED)
+            return current.length() - 1;
+        return languageId >= 0 && languageId < current.length() - 1 ? languageId : -1;
+    }
+}
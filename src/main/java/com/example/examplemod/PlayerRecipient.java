@@ -0,0 +1,80 @@
+package com.example.examplemod;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.ChatVisiblity;
+
+import java.util.UUID;
+
+/**
+ * Получатель рассылки - онлайн-игрок. Создается при входе и респавне (AudienceIndex.add),
+ * поэтому рассылка не создает оберток на каждого игрока
+ */
+public final class PlayerRecipient implements NotifyRecipient
+{
+    private final ServerPlayer player;
+
+    public PlayerRecipient(ServerPlayer player)
+    {
+        this.player = player;
+    }
+
+    public ServerPlayer getPlayer()
+    {
+        return player;
+    }
+
+    @Override
+    public UUID getUUID()
+    {
+        return player.getUUID();
+    }
+
+    @Override
+    public String getLanguage()
+    {
+        return player.getLanguage();
+    }
+
+    // Как в ServerPlayer.sendSystemMessage: при скрытом чате сообщение не отправляется
+    @Override
+    public boolean isChatHidden()
+    {
+        return player.getChatVisibility() == ChatVisiblity.HIDDEN;
+    }
+
+    @Override
+    public boolean hasDisconnected()
+    {
+        return player.hasDisconnected();
+    }
+
+    @Override
+    public String getPlayerName()
+    {
+        return player.getScoreboardName();
+    }
+
+    @Override
+    public String getWorldName()
+    {
+        return player.level().dimension().location().getPath();
+    }
+
+    @Override
+    public void sendSystemMessage(Component message)
+    {
+        player.sendSystemMessage(message);
+    }
+
+    @Override
+    public boolean sendEncoded(ByteBuf encoded)
+    {
+        if (!SharedPacketBroadcaster.canShare(player))
+            return false;
+
+        SharedPacketBroadcaster.send(player, encoded);
+        return true;
+    }
+}
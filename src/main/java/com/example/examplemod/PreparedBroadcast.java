@@ -0,0 +1,234 @@
+package com.example.examplemod;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.game.ClientboundSystemChatPacket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Готовая к отправке рассылка: выбранные сообщения, аудитория по строкам языков и сообщениям
+ * и (в режиме SHARED) уже закодированные пакеты. Может собираться в фоновом потоке,
+ * на основном потоке остается только deliver()
+ */
+public final class PreparedBroadcast
+{
+    // Группа получателей одного сообщения одной строки языка (в SHARED - один закодированный пакет).
+    // Сообщение с переменными игрока собирается для каждого получателя из готового дерева template
+    private static final class Group
+    {
+        final int row;
+        final int index;
+        final Component component;
+        final ComponentTemplate template;
+        final List<NotifyRecipient> players = new ArrayList<>();
+        ByteBuf encoded;
+        // Для журнала доставки: сколько получили и (с audit.perPlayer) кто именно
+        int delivered;
+        List<UUID> recipientIds;
+
+        Group(int row, int index, Component component, ComponentTemplate template)
+        {
+            this.row = row;
+            this.index = index;
+            this.component = component;
+            this.template = template;
+        }
+    }
+
+    private final MessageType messageType;
+    private final long fireTick;
+    // Значения серверных переменных этой рассылки (null - у типа нет шаблонов)
+    private final String[] serverValues;
+    private final List<Group> groups = new ArrayList<>();
+    // Группа по [строка языка][индекс сообщения]; создается при первом игроке строки
+    private final Group[][] groupsByRow;
+    // Выбранное для строки сообщение в режиме RANDOM (одно на строку), -1 - еще не выбрано
+    private final int[] rowPick;
+    // Курсор растянутой доставки: текущая группа и позиция в ней
+    private int cursorGroup;
+    private int cursorIndex;
+
+    PreparedBroadcast(MessageType messageType, long fireTick, String[] serverValues)
+    {
+        int rows = messageType.getLanguageRowCount();
+        this.messageType = messageType;
+        this.fireTick = fireTick;
+        this.serverValues = serverValues;
+        this.groupsByRow = new Group[rows][];
+        this.rowPick = new int[rows];
+        Arrays.fill(rowPick, -1);
+    }
+
+    public MessageType getMessageType()
+    {
+        return messageType;
+    }
+
+    public long getFireTick()
+    {
+        return fireTick;
+    }
+
+    /**
+     * Добавляет игрока в группу строки языка; в режиме RANDOM сообщение для строки выбирается при первом игроке
+     */
+    void add(int row, NotifyRecipient player)
+    {
+        add(row, player, -1L);
+    }
+
+    /**
+     * Добавляет игрока; в режиме SHUFFLE сообщение выбирается по его ротации (rotationKey из PlayerLanguageStore)
+     */
+    void add(int row, NotifyRecipient player, long rotationKey)
+    {
+        int index;
+        if (messageType.isShuffled())
+        {
+            index = messageType.nextMessageIndexFor(row, rotationKey);
+        }
+        else
+        {
+            if (rowPick[row] < 0)
+                rowPick[row] = messageType.pickMessageIndex(row);
+            index = rowPick[row];
+        }
+
+        Group[] rowGroups = groupsByRow[row];
+        if (rowGroups == null)
+        {
+            rowGroups = new Group[messageType.getMessageCount(row)];
+            groupsByRow[row] = rowGroups;
+        }
+        Group group = rowGroups[index];
+        if (group == null)
+        {
+            group = createGroup(row, index);
+            if (DeliveryAudit.isPerPlayer())
+                group.recipientIds = new ArrayList<>();
+            rowGroups[index] = group;
+            groups.add(group);
+        }
+        group.players.add(player);
+    }
+
+    // Обычное сообщение - готовый общий Component; шаблон - серверные переменные подставляются один раз на группу,
+    // и если переменных игрока нет, Component тоже общий для всей группы
+    private Group createGroup(int row, int index)
+    {
+        ComponentTemplate template = messageType.getTemplate(row, index);
+        if (template == null)
+            return new Group(row, index, messageType.getComponent(row, index), null);
+
+        ComponentTemplate bound = template.bindServer(serverValues);
+        if (bound.hasPlayerVariables())
+            return new Group(row, index, null, bound);
+        return new Group(row, index, bound.resolve(null), null);
+    }
+
+    /**
+     * Кодирует пакет один раз на каждую группу из нескольких игроков (режим SHARED)
+     */
+    void encodeShared()
+    {
+        for (Group group : groups)
+        {
+            if (group.component != null && group.players.size() > 1)
+            {
+                group.encoded = SharedPacketBroadcaster.encode(new ClientboundSystemChatPacket(group.component, false));
+            }
+        }
+    }
+
+    /**
+     * Отправляет рассылку целиком. Вызывается только на основном потоке сервера
+     */
+    public void deliver()
+    {
+        deliver(0, 0L);
+    }
+
+    /**
+     * Отправляет следующую порцию рассылки, продолжая с курсора.
+     * maxPlayers - максимум игроков за вызов, budgetNanos - бюджет времени (0 - без ограничения).
+     * Возвращает true, когда рассылка доставлена всем и буферы освобождены
+     */
+    public boolean deliver(int maxPlayers, long budgetNanos)
+    {
+        long deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : 0L;
+        int sent = 0;
+        
+        for (; cursorGroup < groups.size(); cursorGroup++, cursorIndex = 0)
+        {
+            Group group = groups.get(cursorGroup);
+            List<NotifyRecipient> players = group.players;
+            int sentInGroup = 0;
+            while (cursorIndex < players.size())
+            {
+                // Лимит порции исчерпан - продолжим на следующем тике (время проверяем раз в 16 игроков)
+                if ((maxPlayers > 0 && sent >= maxPlayers)
+                        || (deadline != 0L && (sent & 15) == 0 && sent > 0 && System.nanoTime() >= deadline))
+                {
+                    NotifyMetrics.recordDelivered(group.row, sentInGroup);
+                    group.delivered += sentInGroup;
+                    return false;
+                }
+
+                NotifyRecipient player = players.get(cursorIndex++);
+                // Игрок мог выйти, пока рассылка готовилась или доставлялась
+                if (player.hasDisconnected())
+                    continue;
+
+                if (group.template != null)
+                {
+                    player.sendSystemMessage(group.template.resolve(player));
+                }
+                // Без общего пакета или соединение его не принимает - обычная отправка Component
+                else if (group.encoded == null || !player.sendEncoded(group.encoded))
+                {
+                    player.sendSystemMessage(group.component);
+                }
+                sent++;
+                sentInGroup++;
+                if (group.recipientIds != null)
+                    group.recipientIds.add(player.getUUID());
+            }
+            NotifyMetrics.recordDelivered(group.row, sentInGroup);
+            group.delivered += sentInGroup;
+            audit(group);
+        }
+
+        release();
+        return true;
+    }
+
+    // Одна запись журнала на группу - после доставки всем ее игрокам
+    private void audit(Group group)
+    {
+        if (!DeliveryAudit.isEnabled())
+            return;
+
+        String lang = Config.locales.getCode(group.row);
+        UUID[] ids = group.recipientIds != null ? group.recipientIds.toArray(new UUID[0]) : null;
+        DeliveryAudit.record(messageType.getName(), group.index, lang != null ? lang : "fallback", group.delivered, ids);
+    }
+
+    /**
+     * Освобождает закодированные буферы (после отправки или если рассылка устарела)
+     */
+    public void release()
+    {
+        for (Group group : groups)
+        {
+            if (group.encoded != null)
+            {
+                group.encoded.release();
+                group.encoded = null;
+            }
+        }
+    }
+}
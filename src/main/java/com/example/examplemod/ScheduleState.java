@@ -0,0 +1,182 @@
+package com.example.examplemod;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сохраненное расписание типов (notify_mod-schedule.bin рядом с конфигом): время последней отправки каждого типа,
+ * чтобы после перезапуска сервера типы продолжали свой ритм, а не срабатывали все на первом тике.
+ * Файл - заголовок и записи фиксированного размера, отображенные в память: отправка меняет 8 байт в буфере,
+ * а страницы на диск сбрасывает ОС (и force() при остановке сервера). Используется только с основного потока
+ */
+public final class ScheduleState
+{
+    private static final int MAGIC = 0x4E545353; // "NTSS"
+    private static final int VERSION = 1;
+    // Заголовок: magic, версия, число записей, резерв
+    private static final int HEADER_BYTES = 16;
+    private static final int COUNT_OFFSET = 8;
+    // Запись: хэш имени типа, время последней отправки (мс)
+    private static final int RECORD_BYTES = 16;
+    private static final int INITIAL_RECORDS = 32;
+
+    private static FileChannel channel;
+    private static MappedByteBuffer buffer;
+    // Хэш имени типа -> индекс записи
+    private static final Map<Long, Integer> records = new HashMap<>();
+    private static int count;
+
+    private ScheduleState()
+    {
+    }
+
+    public static boolean isOpen()
+    {
+        return buffer != null;
+    }
+
+    /**
+     * Открывает (или создает) файл расписания. Ошибка не мешает работе - расписание просто не сохраняется
+     */
+    public static void open(Path path)
+    {
+        close();
+        try
+        {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            long size = channel.size();
+            if (size >= HEADER_BYTES)
+            {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                count = buffer.getInt(COUNT_OFFSET);
+                boolean valid = buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION
+                        && count >= 0 && HEADER_BYTES + (long) count * RECORD_BYTES <= size;
+                if (!valid)
+                    buffer = null;
+            }
+
+            // Нового файла нет или формат не тот - начинаем с пустого расписания
+            if (buffer == null)
+            {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) INITIAL_RECORDS * RECORD_BYTES);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                count = 0;
+                buffer.putInt(COUNT_OFFSET, 0);
+            }
+
+            for (int index = 0; index < count; index++)
+            {
+                records.put(buffer.getLong(offset(index)), index);
+            }
+        }
+        catch (IOException e)
+        {
+            ExampleMod.LOGGER.warn("[Notify] Schedule state {} is unavailable, timers will start from scratch: {}",
+                                   path, e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Время последней отправки типа (мс) или -1, если тип еще не отправлялся или файл недоступен
+     */
+    public static long getLastSentMillis(String typeName)
+    {
+        if (buffer == null)
+            return -1L;
+
+        Integer index = records.get(hash(typeName));
+        return index != null ? buffer.getLong(offset(index) + 8) : -1L;
+    }
+
+    /**
+     * Запоминает отправку типа; новый тип получает запись в конце файла
+     */
+    public static void recordSent(String typeName, long millis)
+    {
+        if (buffer == null)
+            return;
+
+        long hash = hash(typeName);
+        Integer index = records.get(hash);
+        if (index == null)
+        {
+            index = count;
+            if (!ensureCapacity(count + 1))
+                return;
+            buffer.putLong(offset(index), hash);
+            records.put(hash, index);
+            buffer.putInt(COUNT_OFFSET, ++count);
+        }
+        buffer.putLong(offset(index) + 8, millis);
+    }
+
+    /**
+     * Сбрасывает изменения на диск и закрывает файл (остановка сервера)
+     */
+    public static void close()
+    {
+        if (buffer != null)
+            buffer.force();
+        if (channel != null)
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                ExampleMod.LOGGER.warn("[Notify] Failed to close schedule state: {}", e.getMessage());
+            }
+        }
+        channel = null;
+        buffer = null;
+        records.clear();
+        count = 0;
+    }
+
+    // Отображение с запасом вдвое, если новая запись не помещается (файл растет вместе с ним)
+    private static boolean ensureCapacity(int recordCount)
+    {
+        long required = HEADER_BYTES + (long) recordCount * RECORD_BYTES;
+        if (required <= buffer.capacity())
+            return true;
+
+        try
+        {
+            buffer.force();
+            long size = Math.max(required, HEADER_BYTES + 2L * (buffer.capacity() - HEADER_BYTES));
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return true;
+        }
+        catch (IOException e)
+        {
+            ExampleMod.LOGGER.warn("[Notify] Failed to grow schedule state: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static int offset(int index)
+    {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    // 64-битный FNV-1a имени типа
+    private static long hash(String typeName)
+    {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : typeName.getBytes(StandardCharsets.UTF_8))
+        {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
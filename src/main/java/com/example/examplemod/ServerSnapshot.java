@@ -0,0 +1,88 @@
+package com.example.examplemod;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+
+/**
+ * Состояние сервера для условий типов сообщений (NotifyCondition).
+ * Снимается не чаще одного раза за тик и только если на этом тике есть тип с условием
+ */
+public final class ServerSnapshot
+{
+    // Ночь в верхнем мире: от заката до рассвета (как в Level.isNight при ясной погоде)
+    private static final long NIGHT_START = 13000L;
+    private static final long NIGHT_END = 23000L;
+
+    private long sampledTick = Long.MIN_VALUE;
+    private int online;
+    private int maxPlayers;
+    private double mspt;
+    private double tps;
+    private long dayTime;
+    private boolean night;
+
+    /**
+     * Обновляет снимок, если он еще не снимался на этом тике
+     */
+    public void sample(MinecraftServer server, long tick)
+    {
+        if (sampledTick == tick)
+            return;
+
+        online = server.getPlayerCount();
+        maxPlayers = server.getMaxPlayers();
+        mspt = server.getAverageTickTime();
+        // Сервер не может выдать больше 20 TPS, даже если тик занимает меньше 50 мс
+        tps = mspt > 0.0 ? Math.min(20.0, 1000.0 / mspt) : 20.0;
+
+        ServerLevel overworld = server.overworld();
+        dayTime = overworld != null ? overworld.getDayTime() % 24000L : 0L;
+        night = dayTime >= NIGHT_START && dayTime < NIGHT_END;
+
+        sampledTick = tick;
+    }
+
+    /**
+     * Задает значения напрямую (бенчмарки и проверка условий без сервера)
+     */
+    public void set(int online, int maxPlayers, double mspt, long dayTime)
+    {
+        this.online = online;
+        this.maxPlayers = maxPlayers;
+        this.mspt = mspt;
+        this.tps = mspt > 0.0 ? Math.min(20.0, 1000.0 / mspt) : 20.0;
+        this.dayTime = dayTime % 24000L;
+        this.night = this.dayTime >= NIGHT_START && this.dayTime < NIGHT_END;
+        this.sampledTick = Long.MIN_VALUE;
+    }
+
+    public int getOnline()
+    {
+        return online;
+    }
+
+    public int getMaxPlayers()
+    {
+        return maxPlayers;
+    }
+
+    public double getMspt()
+    {
+        return mspt;
+    }
+
+    public double getTps()
+    {
+        return tps;
+    }
+
+    public long getDayTime()
+    {
+        return dayTime;
+    }
+
+    public boolean isNight()
+    {
+        return night;
+    }
+}
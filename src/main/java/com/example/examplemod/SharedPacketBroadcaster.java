@@ -0,0 +1,74 @@
+package com.example.examplemod;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import net.minecraft.network.Connection;
+import net.minecraft.network.ConnectionProtocol;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketFlow;
+import net.minecraft.server.level.ServerPlayer;
+
+/**
+ * Рассылка с однократной сериализацией: пакет кодируется один раз (id + данные, как это делает PacketEncoder),
+ * после чего один и тот же буфер пишется в канал каждого получателя.
+ * Сжатие, длина кадра и шифрование по-прежнему применяются пайплайном каждого соединения
+ */
+public final class SharedPacketBroadcaster
+{
+    private SharedPacketBroadcaster()
+    {
+    }
+
+    /**
+     * Кодирует пакет протокола PLAY в новый буфер. Вызывающий обязан вызвать release() после рассылки
+     */
+    public static ByteBuf encode(Packet<?> packet)
+    {
+        int packetId = ConnectionProtocol.PLAY.getPacketId(PacketFlow.CLIENTBOUND, packet);
+        if (packetId == -1)
+        {
+            throw new IllegalArgumentException("Unregistered packet: " + packet.getClass().getName());
+        }
+
+        FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.buffer());
+        buffer.writeVarInt(packetId);
+        packet.write(buffer);
+        return buffer;
+    }
+
+    /**
+     * Можно ли писать готовый буфер напрямую в канал игрока; иначе пакет отправляется через sendSystemMessage.
+     * Локальные (memory) соединения одиночной игры не имеют кодировщика и получают пакет как объект.
+     * Буфер закодирован id из таблицы PLAY, поэтому соединение должно быть в состоянии PLAY
+     * (атрибут протокола канала, тот же, по которому кодирует PacketEncoder)
+     */
+    public static boolean canShare(ServerPlayer player)
+    {
+        if (player.connection == null)
+            return false;
+
+        Connection connection = player.connection.connection;
+        Channel channel = connection.channel();
+        return channel != null && connection.isConnected() && !connection.isMemoryConnection()
+                && channel.attr(Connection.ATTRIBUTE_PROTOCOL).get() == ConnectionProtocol.PLAY;
+    }
+
+    /**
+     * Пишет закодированный пакет в канал игрока. Буфер не освобождается - каждому каналу отдается свой дубликат.
+     * Вызывать только после canShare на том же тике
+     */
+    public static void send(ServerPlayer player, ByteBuf encoded)
+    {
+        // Запись в обход Connection.send безопасна при выполненном canShare:
+        // - очередь Connection пополняется только пока канал не открыт, а открытый канал обратно не открывается,
+        //   поэтому у подключенного соединения нет отложенных пакетов, которые этот пакет мог бы обогнать;
+        // - Connection.send с основного потока тоже передает запись в eventLoop канала, так что порядок
+        //   с пакетами, отправленными до и после, сохраняется;
+        // - протокол PLAY проверен, а пакет системного чата не меняет состояние соединения, поэтому
+        //   переключение autoRead, которое Connection делает при смене протокола, здесь не нужно
+        Channel channel = player.connection.connection.channel();
+        channel.writeAndFlush(encoded.retainedDuplicate());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.examplemod;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ротация сообщений типа без повторов для каждого игрока (rotation = "SHUFFLE").
+ * Мешок не хранится списком: перестановка индексов задается зерном, и для игрока хранятся только
+ * зерно и позиция в плоских int-массивах по слоту игрока (PlayerLanguageStore.getRotationKey).
+ * Пока игрок не увидел все сообщения строки языка, повторов нет
+ */
+public final class ShuffleRotation
+{
+    private static final int INITIAL_CAPACITY = 64;
+
+    // По слоту игрока: владелец слота (токен записи), зерно перестановки и позиция в ней
+    private int[] owners = new int[INITIAL_CAPACITY];
+    private int[] seeds = new int[INITIAL_CAPACITY];
+    private int[] positions = new int[INITIAL_CAPACITY];
+
+    /**
+     * Следующий индекс сообщения для игрока из n сообщений.
+     * rotationKey - ключ из PlayerLanguageStore (слот и токен записи игрока)
+     */
+    public synchronized int next(long rotationKey, int n)
+    {
+        if (n <= 1)
+            return 0;
+
+        int slot = (int) rotationKey;
+        int owner = (int) (rotationKey >>> 32);
+        ensureCapacity(slot);
+
+        // Слот занят новым игроком или мешок пройден (или строка языка стала короче) - новая перестановка
+        if (owners[slot] != owner || seeds[slot] == 0 || positions[slot] >= n)
+        {
+            int previous = owners[slot] == owner && seeds[slot] != 0 && positions[slot] > 0
+                    ? permute(positions[slot] - 1, seeds[slot], n)
+                    : -1;
+            owners[slot] = owner;
+            seeds[slot] = newSeed(n, previous);
+            positions[slot] = 0;
+        }
+
+        return permute(positions[slot]++, seeds[slot], n);
+    }
+
+    // Перенос состояния с прежней версии типа при перезагрузке конфига
+    public synchronized void copyFrom(ShuffleRotation other)
+    {
+        synchronized (other)
+        {
+            owners = other.owners.clone();
+            seeds = other.seeds.clone();
+            positions = other.positions.clone();
+        }
+    }
+
+    private void ensureCapacity(int slot)
+    {
+        if (slot < owners.length)
+            return;
+
+        int capacity = Math.max(owners.length * 2, slot + 1);
+        owners = Arrays.copyOf(owners, capacity);
+        seeds = Arrays.copyOf(seeds, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+    }
+
+    // Зерно, с которым новый мешок не начинается с последнего сообщения предыдущего
+    private static int newSeed(int n, int previous)
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int seed = random.nextInt() | 1;
+        for (int attempt = 0; attempt < 4 && permute(0, seed, n) == previous; attempt++)
+        {
+            seed = random.nextInt() | 1;
+        }
+        return seed;
+    }
+
+    /**
+     * Биекция [0, n) -> [0, n), заданная зерном: обратимое перемешивание на [0, 2^k)
+     * с отбрасыванием значений вне диапазона (cycle walking)
+     */
+    static int permute(int index, int seed, int n)
+    {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, n - 1));
+        int mask = (1 << bits) - 1;
+        int shift = Math.max(1, bits / 2);
+        int multiplier = (seed << 1) | 1;
+        int offset = seed >>> 7;
+
+        int value = index;
+        do
+        {
+            value = (value * multiplier + offset) & mask;
+            value ^= value >>> shift;
+            value = (value * 0x2C1B3C6D + seed) & mask;
+            value ^= value >>> shift;
+        }
+        while (value >= n);
+        return value;
+    }
+}
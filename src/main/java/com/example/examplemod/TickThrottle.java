@@ -0,0 +1,128 @@
+package com.example.examplemod;
+
+import net.minecraft.server.MinecraftServer;
+
+import java.util.Locale;
+
+/**
+ * Адаптивное ограничение планировщика по здоровью сервера. Время тика берется из tickTimes сервера
+ * и сглаживается (EWMA примерно по 10 последним тикам). Выше throttle.softMspt откладываются типы
+ * с приоритетом LOW, выше throttle.hardMspt - и NORMAL; порции растянутой доставки при этом уменьшаются.
+ * Обратный переход - только когда MSPT опустится на 10% ниже порога, чтобы уровень не дребезжал
+ */
+public final class TickThrottle
+{
+    // Уровни нагрузки
+    public static final int NORMAL = 0;
+    public static final int SOFT = 1;
+    public static final int HARD = 2;
+    // Приоритеты типов: тип откладывается, если его приоритет ниже уровня нагрузки
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_HIGH = 2;
+
+    private static final double SMOOTHING = 0.1;
+    private static final double RECOVERY_FACTOR = 0.9;
+
+    private double mspt;
+    private int level = NORMAL;
+
+    /**
+     * Учитывает время предыдущего тика (событие END приходит до записи текущего в tickTimes)
+     */
+    public void update(MinecraftServer server)
+    {
+        long[] tickTimes = server.tickTimes;
+        record(tickTimes[Math.floorMod(server.getTickCount() - 1, tickTimes.length)] / 1_000_000.0);
+    }
+
+    void record(double tickMillis)
+    {
+        mspt = mspt == 0.0 ? tickMillis : mspt + SMOOTHING * (tickMillis - mspt);
+
+        int previous = level;
+        level = Config.throttleEnabled ? levelFor(mspt, level) : NORMAL;
+        if (level > previous)
+        {
+            ExampleMod.LOGGER.warn("[Notify] Server is lagging ({} MSPT), deferring {} priority messages",
+                                   String.format(Locale.ROOT, "%.1f", mspt), level == HARD ? "LOW and NORMAL" : "LOW");
+        }
+        else if (level < previous)
+        {
+            ExampleMod.LOGGER.info("[Notify] Server load dropped ({} MSPT), throttle level {}",
+                                   String.format(Locale.ROOT, "%.1f", mspt), levelName(level));
+        }
+    }
+
+    private static int levelFor(double mspt, int current)
+    {
+        // Повышаем по порогу, понижаем только ниже порога с запасом
+        if (mspt >= Config.throttleHardMspt || (current == HARD && mspt >= Config.throttleHardMspt * RECOVERY_FACTOR))
+            return HARD;
+        if (mspt >= Config.throttleSoftMspt || (current >= SOFT && mspt >= Config.throttleSoftMspt * RECOVERY_FACTOR))
+            return SOFT;
+        return NORMAL;
+    }
+
+    public double getMspt()
+    {
+        return mspt;
+    }
+
+    public int getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * Отложить ли отправку типа с таким приоритетом на текущем уровне нагрузки
+     */
+    public boolean shouldDefer(int priority)
+    {
+        return priority < level;
+    }
+
+    /**
+     * Игроков за тик для растянутой доставки с учетом нагрузки: настроенная порция уменьшается вдвое
+     * на каждый уровень, доставка "всем сразу" ограничивается throttle.lagBatch (вдвое меньше на HARD)
+     */
+    public int deliveryBatch(int configured)
+    {
+        if (level == NORMAL)
+            return configured;
+        if (configured > 0)
+            return Math.max(1, configured >> level);
+        return Math.max(1, Config.throttleLagBatch >> (level - 1));
+    }
+
+    public void reset()
+    {
+        mspt = 0.0;
+        level = NORMAL;
+    }
+
+    public static String levelName(int level)
+    {
+        return switch (level)
+        {
+            case SOFT -> "SOFT";
+            case HARD -> "HARD";
+            default -> "NORMAL";
+        };
+    }
+
+    /**
+     * Приоритет из конфига: LOW, NORMAL, HIGH (без учета регистра); неизвестное значение - NORMAL
+     */
+    public static int parsePriority(String value)
+    {
+        if (value == null)
+            return PRIORITY_NORMAL;
+        return switch (value.toUpperCase(Locale.ROOT))
+        {
+            case "LOW" -> PRIORITY_LOW;
+            case "HIGH" -> PRIORITY_HIGH;
+            default -> PRIORITY_NORMAL;
+        };
+    }
+}